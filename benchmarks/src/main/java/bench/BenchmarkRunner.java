@@ -0,0 +1,35 @@
+package main.java.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * benchmarkrunner is the entry point of benchmarks.jar. it takes the usual
+ * jmh command line and, unless -rf is given, writes the results as json to
+ * results/jmh-<timestamp>.json so runs can be compared over time.
+ */
+public class BenchmarkRunner {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("-rf")) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        
+        Path results = Paths.get("results");
+        Files.createDirectories(results);
+        String file = results.resolve("jmh-" + LocalDateTime.now().format(TIMESTAMP) + ".json").toString();
+        
+        String[] withResults = Arrays.copyOf(args, args.length + 4);
+        withResults[args.length] = "-rf";
+        withResults[args.length + 1] = "json";
+        withResults[args.length + 2] = "-rff";
+        withResults[args.length + 3] = file;
+        org.openjdk.jmh.Main.main(withResults);
+    }
+}
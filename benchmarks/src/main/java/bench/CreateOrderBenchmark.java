@@ -0,0 +1,69 @@
+package main.java.bench;
+
+import main.java.exception.InvalidOrderException;
+import main.java.model.Order;
+import main.java.service.OrderService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OrderService.createOrder from 8 threads. every order takes stock from
+ * products in a pool of hotProducts, so a pool of 1 puts all threads on the
+ * same stock row and shows the cost of the row lock.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class CreateOrderBenchmark {
+    private static final String PREFIX = "BX";
+    
+    @Param({ "1", "16", "1000" })
+    public int hotProducts;
+    
+    private final AtomicLong nextId = new AtomicLong();
+    private OrderService orderService;
+    
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        Fixtures.deleteOrders(PREFIX);
+        orderService = new OrderService();
+    }
+    
+    @Benchmark
+    public Order createOrder() throws InvalidOrderException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Order order = new Order(PREFIX + nextId.incrementAndGet(), Fixtures.customer(random.nextInt(Fixtures.CUSTOMERS)));
+        int first = random.nextInt(hotProducts);
+        for (int i = 0; i < Math.min(3, hotProducts); i++) {
+            order.addItem(Fixtures.product((first + i) % hotProducts), 1);
+        }
+        orderService.createOrder(order);
+        return order;
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.deleteOrders(PREFIX);
+    }
+}
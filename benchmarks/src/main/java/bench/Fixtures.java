@@ -0,0 +1,197 @@
+package main.java.bench;
+
+import main.java.dao.DatabaseManager;
+import main.java.dao.ProductDAO;
+import main.java.model.Customer;
+import main.java.model.Order;
+import main.java.model.Product;
+import main.java.util.LoggerUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * fixtures seeds the benchmark database: a fixed catalog of products and
+ * customers plus an exact number of orders for the read benchmarks. all
+ * benchmark rows use their own id prefixes, and the database must not hold
+ * any other orders, so point DB_URL at a dedicated schema, e.g.
+ * -DDB_URL=jdbc:mysql://localhost:3306/orderly_bench.
+ */
+final class Fixtures {
+    static final int PRODUCTS = 1_000;
+    static final int CUSTOMERS = 1_000;
+    static final int LINES_PER_ORDER = 3;
+    //stock is never the bottleneck, contention is on the rows themselves
+    static final int STOCK = 1_000_000_000;
+    
+    private static final String PRODUCT_PREFIX = "BP";
+    private static final String CUSTOMER_PREFIX = "BC";
+    static final String ORDER_PREFIX = "BO";
+    private static final int BATCH_SIZE = 1_000;
+    
+    private static boolean initialized;
+    
+    private Fixtures() {
+    }
+    
+    static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        //per-call info logging would drown the measurements and the jmh output
+        LoggerUtil.getInstance();
+        Logger.getLogger("main.java.OrderlyLogger").setLevel(Level.WARNING);
+        
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            checkDedicatedDatabase(conn);
+            seedCatalog(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error seeding benchmark catalog: " + e.getMessage(), e);
+        }
+        initialized = true;
+    }
+    
+    static String productId(int i) {
+        return PRODUCT_PREFIX + i;
+    }
+    
+    static String customerId(int i) {
+        return CUSTOMER_PREFIX + i;
+    }
+    
+    static Customer customer(int i) {
+        return new Customer(customerId(i), "Bench Customer " + i, "bench" + i + "@example.com");
+    }
+    
+    static Product product(int i) {
+        return ProductDAO.getInstance().findById(productId(i));
+    }
+    
+    //an order for customer c with lines for products first, first+1, ...
+    static Order order(String id, int c, int first, int lines) {
+        Order order = new Order(id, customer(c % CUSTOMERS));
+        for (int i = 0; i < lines; i++) {
+            order.addItem(product((first + i) % PRODUCTS), 1);
+        }
+        return order;
+    }
+    
+    //leaves exactly count seeded orders, reseeding only when the count differs
+    static void ensureOrders(int count) {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            if (countRows(conn, "SELECT COUNT(*) FROM orders") == count) {
+                return;
+            }
+            deleteOrders(conn, ORDER_PREFIX);
+            insertOrders(conn, count);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error seeding benchmark orders: " + e.getMessage(), e);
+        }
+    }
+    
+    //removes orders written by a benchmark run, e.g. prefix "BS" for the save benchmarks
+    static void deleteOrders(String prefix) {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            deleteOrders(conn, prefix);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting benchmark orders: " + e.getMessage(), e);
+        }
+    }
+    
+    private static void checkDedicatedDatabase(Connection conn) throws SQLException {
+        long foreign = countRows(conn, "SELECT COUNT(*) FROM orders WHERE id NOT LIKE 'B%'");
+        if (foreign > 0) {
+            throw new IllegalStateException("Database holds " + foreign + " non-benchmark orders, "
+                    + "run the benchmarks against a dedicated database (-DDB_URL=...)");
+        }
+    }
+    
+    private static void seedCatalog(Connection conn) throws SQLException {
+        if (countRows(conn, "SELECT COUNT(*) FROM products WHERE id LIKE '" + PRODUCT_PREFIX + "%'") < PRODUCTS) {
+            String sql = "INSERT IGNORE INTO products (id, name, price, description, stock) VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < PRODUCTS; i++) {
+                    pstmt.setString(1, productId(i));
+                    pstmt.setString(2, "Bench Product " + i);
+                    pstmt.setDouble(3, 1 + i % 100);
+                    pstmt.setString(4, "Benchmark fixture");
+                    pstmt.setInt(5, STOCK);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+        
+        if (countRows(conn, "SELECT COUNT(*) FROM customers WHERE id LIKE '" + CUSTOMER_PREFIX + "%'") < CUSTOMERS) {
+            String sql = "INSERT IGNORE INTO customers (id, name, email) VALUES (?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < CUSTOMERS; i++) {
+                    Customer customer = customer(i);
+                    pstmt.setString(1, customer.getId());
+                    pstmt.setString(2, customer.getName());
+                    pstmt.setString(3, customer.getEmail());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+        
+        //earlier contention runs may have used some stock
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE products SET stock = " + STOCK + " WHERE id LIKE '" + PRODUCT_PREFIX + "%'");
+        }
+    }
+    
+    private static void insertOrders(Connection conn, int count) throws SQLException {
+        String orderSql = "INSERT INTO orders (id, customer_id, order_date, status) VALUES (?, ?, ?, 'NEW')";
+        String itemSql = "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, 1)";
+        LocalDateTime start = LocalDateTime.now().minusMinutes(count);
+        
+        conn.setAutoCommit(false);
+        try (PreparedStatement orders = conn.prepareStatement(orderSql);
+             PreparedStatement items = conn.prepareStatement(itemSql)) {
+            for (int i = 0; i < count; i++) {
+                String id = ORDER_PREFIX + i;
+                orders.setString(1, id);
+                orders.setString(2, customerId(i % CUSTOMERS));
+                orders.setTimestamp(3, Timestamp.valueOf(start.plusMinutes(i)));
+                orders.addBatch();
+                for (int line = 0; line < LINES_PER_ORDER; line++) {
+                    items.setString(1, id);
+                    items.setString(2, productId((i + line) % PRODUCTS));
+                    items.addBatch();
+                }
+                
+                if ((i + 1) % BATCH_SIZE == 0 || i == count - 1) {
+                    orders.executeBatch();
+                    items.executeBatch();
+                    conn.commit();
+                }
+            }
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+    
+    private static void deleteOrders(Connection conn, String prefix) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM order_items WHERE order_id LIKE '" + prefix + "%'");
+            stmt.executeUpdate("DELETE FROM orders WHERE id LIKE '" + prefix + "%'");
+        }
+    }
+    
+    private static long countRows(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package main.java.bench;
+
+import main.java.model.Customer;
+import main.java.model.Order;
+import main.java.model.OrderItem;
+import main.java.model.Product;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * allocation paths of the model classes, no database involved. run with
+ * -prof gc to see bytes allocated per operation next to the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelAllocationBenchmark {
+    private Product product;
+    private Customer customer;
+    private Order order;
+    
+    @Setup
+    public void setup() {
+        product = buildProduct();
+        customer = new Customer("C1", "Customer", "customer@example.com");
+        order = buildOrder();
+    }
+    
+    @Benchmark
+    public Product buildProduct() {
+        return new Product.Builder()
+                .id("P1")
+                .name("Product")
+                .price(9.99)
+                .description("Allocation benchmark")
+                .stock(10)
+                .build();
+    }
+    
+    @Benchmark
+    public Product cloneProduct() {
+        return product.clone();
+    }
+    
+    @Benchmark
+    public Order buildOrder() {
+        Order built = new Order("O1", customer);
+        for (int i = 0; i < 10; i++) {
+            built.addItem(product, i + 1);
+        }
+        return built;
+    }
+    
+    //getItems copies the line list on every call
+    @Benchmark
+    public List<OrderItem> getItems() {
+        return order.getItems();
+    }
+}
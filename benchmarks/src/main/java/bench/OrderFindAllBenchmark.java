@@ -0,0 +1,44 @@
+package main.java.bench;
+
+import main.java.dao.OrderDAO;
+import main.java.model.Order;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//OrderDAO.findAll over the whole order table, lines included
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class OrderFindAllBenchmark {
+    @Param({ "1000", "100000" })
+    public int orders;
+    
+    private OrderDAO orderDAO;
+    
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        Fixtures.ensureOrders(orders);
+        orderDAO = OrderDAO.getInstance();
+    }
+    
+    @Benchmark
+    public List<Order> findAll() {
+        return orderDAO.findAll();
+    }
+}
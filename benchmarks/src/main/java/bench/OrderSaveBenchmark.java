@@ -0,0 +1,60 @@
+package main.java.bench;
+
+import main.java.dao.OrderDAO;
+import main.java.model.Order;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//OrderDAO.save for small, typical and very large orders
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderSaveBenchmark {
+    private static final String PREFIX = "BS";
+    
+    @Param({ "1", "10", "500" })
+    public int lines;
+    
+    private final AtomicLong nextId = new AtomicLong();
+    private OrderDAO orderDAO;
+    private Order template;
+    
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        Fixtures.deleteOrders(PREFIX);
+        orderDAO = OrderDAO.getInstance();
+        template = Fixtures.order("template", 0, 0, lines);
+    }
+    
+    @Benchmark
+    public void save() {
+        long n = nextId.incrementAndGet();
+        //same lines every time, only the id changes
+        Order order = new Order(PREFIX + n, template.getCustomer());
+        template.getItems().forEach(item -> order.addItem(item.getProduct(), item.getQuantity()));
+        orderDAO.save(order);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.deleteOrders(PREFIX);
+    }
+}
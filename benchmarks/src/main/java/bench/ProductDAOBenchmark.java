@@ -0,0 +1,65 @@
+package main.java.bench;
+
+import main.java.dao.ProductDAO;
+import main.java.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//ProductDAO.findById and findByIds served from the entity cache and from the database
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductDAOBenchmark {
+    //ids per findByIds call, roughly the product count of a page of orders
+    private static final int BATCH = 50;
+    
+    @Param({ "true", "false" })
+    public boolean cached;
+    
+    private ProductDAO productDAO;
+    
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        productDAO = ProductDAO.getInstance();
+    }
+    
+    @Benchmark
+    public Product findById() {
+        String id = Fixtures.productId(ThreadLocalRandom.current().nextInt(Fixtures.PRODUCTS));
+        if (!cached) {
+            productDAO.invalidateCache(List.of(id));
+        }
+        return productDAO.findById(id);
+    }
+    
+    @Benchmark
+    public Map<String, Product> findByIds() {
+        List<String> ids = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            ids.add(Fixtures.productId(ThreadLocalRandom.current().nextInt(Fixtures.PRODUCTS)));
+        }
+        if (!cached) {
+            productDAO.invalidateCache(ids);
+        }
+        return productDAO.findByIds(ids);
+    }
+}
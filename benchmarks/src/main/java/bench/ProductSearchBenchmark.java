@@ -0,0 +1,43 @@
+package main.java.bench;
+
+import main.java.model.Product;
+import main.java.service.ProductService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//ProductService.searchProductsByName for a prefix hit, a word hit and a miss
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+    @Param({ "Bench", "Product 42", "nothing-matches" })
+    public String term;
+    
+    private ProductService productService;
+    
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        productService = new ProductService();
+    }
+    
+    @Benchmark
+    public List<Product> searchProductsByName() {
+        return productService.searchProductsByName(term);
+    }
+}
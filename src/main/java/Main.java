@@ -1,8 +1,10 @@
 package main.java;
 
+import main.java.dao.CustomerDAO;
 import main.java.ui.SwingUI;
 import main.java.util.LoggerUtil;
 import main.java.util.DotEnv;
+import main.java.util.MetricsRegistry;
 //add the missing JOptionPane import:
 import javax.swing.JOptionPane;
 
@@ -12,8 +14,13 @@ public class Main {
         DotEnv.load();
         
         LoggerUtil logger = LoggerUtil.getInstance();
+        logger.configureFromEnv();
+        MetricsRegistry.getInstance().startReporting(DotEnv.getLong("METRICS_REPORT_INTERVAL_S", 60));
         logger.info("Starting Orderly Management System");
         
+        //tools skip this, the index only pays off in the long-running application
+        CustomerDAO.getInstance().startSearchIndexBuild();
+        
         try {
             SwingUI ui = new SwingUI();
             ui.setVisible(true); 
@@ -0,0 +1,134 @@
+package main.java.dao;
+
+import main.java.util.DotEnv;
+import main.java.util.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * batchloader coalesces single-key lookups that miss the entity cache.
+ * a thread asking for a key that is already being loaded waits for that
+ * load instead of running its own query (single flight). the first thread
+ * to ask for a new key loads every key requested in the meantime with one
+ * call of the batch function, so a burst of lookups for different keys
+ * becomes one IN query.
+ *
+ * DB_LOADER_WINDOW_MICROS (default 0) lets that thread wait a little to
+ * collect more keys. it only waits while other loads are in flight: an
+ * isolated miss has nobody to batch with and goes straight to the database.
+ *
+ * metrics are published under the loader's name: requests, coalesced
+ * (requests that joined an in-flight load), queries (batch function calls)
+ * and coalescingRatio, the share of requests that didn't need a query.
+ */
+class BatchLoader<K, V> {
+    private static final long WINDOW_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(Math.max(0, DotEnv.getLong("DB_LOADER_WINDOW_MICROS", 0)));
+    
+    private final Function<List<K>, Map<K, V>> batchFunction;
+    private final int maxBatchSize;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final MetricsRegistry.Counter requests;
+    private final MetricsRegistry.Counter coalesced;
+    private final MetricsRegistry.Counter queries;
+    
+    //keys waiting for the next batch, guarded by this
+    private List<K> pending = new ArrayList<>();
+    
+    BatchLoader(String name, Function<List<K>, Map<K, V>> batchFunction) {
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = InLists.MAX_SIZE;
+        
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        requests = metrics.counter(name + ".requests");
+        coalesced = metrics.counter(name + ".coalesced");
+        queries = metrics.counter(name + ".queries");
+        metrics.gauge(name + ".coalescingRatio", this::getCoalescingRatio);
+    }
+    
+    //returns the value for the key, or null when the batch function has none
+    V load(K key) {
+        requests.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        
+        List<K> batch = null;
+        boolean first;
+        synchronized (this) {
+            pending.add(key);
+            first = pending.size() == 1;
+            if (pending.size() >= maxBatchSize) {
+                batch = takePending();
+            }
+        }
+        
+        //the thread that opened the batch collects the window's keys and runs it
+        if (batch == null && first) {
+            if (WINDOW_NANOS > 0 && inFlight.size() > 1) {
+                LockSupport.parkNanos(WINDOW_NANOS);
+            }
+            synchronized (this) {
+                batch = takePending();
+            }
+        }
+        if (batch != null && !batch.isEmpty()) {
+            dispatch(batch);
+        }
+        
+        return await(future);
+    }
+    
+    double getCoalescingRatio() {
+        long total = requests.getCount();
+        return total == 0 ? 0.0 : 1.0 - (double) queries.getCount() / total;
+    }
+    
+    private List<K> takePending() {
+        List<K> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+    
+    private void dispatch(List<K> keys) {
+        queries.increment();
+        Map<K, V> values;
+        try {
+            values = batchFunction.apply(keys);
+        } catch (RuntimeException | Error e) {
+            //waiting threads get the failure too instead of hanging
+            for (K key : keys) {
+                inFlight.remove(key).completeExceptionally(e);
+            }
+            throw e;
+        }
+        for (K key : keys) {
+            inFlight.remove(key).complete(values.get(key));
+        }
+    }
+    
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package main.java.dao;
+
+import main.java.util.LoggerUtil;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * connectionpool keeps a bounded set of physical jdbc connections open and
+ * reuses them across the whole application instead of opening a new
+ * connection for every dao call.
+ *
+ * borrowed connections are validated before use (unless they were used very
+ * recently), idle connections above the minimum are evicted after the idle
+ * timeout and every connection is retired once it reaches its max lifetime.
+ * each physical connection carries its own lru prepared statement cache.
+ */
+public class ConnectionPool implements ConnectionPoolMXBean {
+    //skip the validation round trip for connections returned this recently
+    private static final long VALIDATION_BYPASS_MS = 500;
+    private static final long HOUSEKEEPING_INTERVAL_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final LoggerUtil logger;
+
+    private final Semaphore permits;
+    //idle connections, most recently returned first
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+            long acquireTimeoutMs, long idleTimeoutMs, long maxLifetimeMs, int validationTimeoutSeconds,
+            int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.logger = LoggerUtil.getInstance();
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "orderly-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        logger.info("Connection pool created (max=" + maxSize + ", minIdle=" + this.minIdle
+                + ", acquireTimeout=" + acquireTimeoutMs + "ms, statementCache=" + statementCacheSize + ")");
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMs
+                        + "ms waiting for a database connection (active=" + active.get()
+                        + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(waited);
+
+        try {
+            PooledConnection pooled = borrowIdle();
+            if (pooled == null) {
+                pooled = createConnection();
+            }
+            active.incrementAndGet();
+            return pooled.lease(waited);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            Connection conn = pooled.getPhysical();
+            if (closed || isExpired(pooled, System.currentTimeMillis()) || conn.isClosed()) {
+                discard(pooled);
+                return;
+            }
+
+            //statements left open by the borrower become available again
+            pooled.getStatementCache().reset();
+
+            //never hand out a connection with a half-finished transaction
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+
+            pooled.touch();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            logger.warning("Discarding connection that failed to reset: " + e.getMessage());
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledConnection borrowIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+            if (isExpired(pooled, now)) {
+                discard(pooled);
+                continue;
+            }
+            if (now - pooled.getLastUsedAt() > VALIDATION_BYPASS_MS && !isValid(pooled)) {
+                logger.warning("Discarding connection that failed validation");
+                discard(pooled);
+                continue;
+            }
+            return pooled;
+        }
+        return null;
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, password);
+        total.incrementAndGet();
+        created.incrementAndGet();
+        return wrap(conn);
+    }
+
+    //claims one of the maxSize physical connections before it is opened
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = total.get();
+            if (current >= maxSize) {
+                return false;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PooledConnection openReserved() throws SQLException {
+        try {
+            Connection conn = DriverManager.getConnection(url, user, password);
+            created.incrementAndGet();
+            return wrap(conn);
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private PooledConnection wrap(Connection conn) {
+        return new PooledConnection(this, conn,
+                new StatementCache(conn, statementCacheSize, statementCacheHits, statementCacheMisses));
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.getPhysical().isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        return maxLifetimeMs > 0 && now - pooled.getCreatedAt() >= maxLifetimeMs;
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        pooled.closePhysical();
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            //evict from the least recently used end, keeping at least minIdle around
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                boolean idleTooLong = idleTimeoutMs > 0
+                        && now - pooled.getLastUsedAt() >= idleTimeoutMs
+                        && idle.size() > minIdle;
+                if ((idleTooLong || isExpired(pooled, now)) && idle.remove(pooled)) {
+                    discard(pooled);
+                }
+            }
+
+            //top the pool back up to minIdle. each connection is opened holding a permit and a
+            //reserved slot in total, so it can't race getConnection past maxSize
+            while (!closed && idle.size() < minIdle && permits.tryAcquire()) {
+                try {
+                    if (!reserveSlot()) {
+                        break;
+                    }
+                    idle.offerLast(openReserved());
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException e) {
+            logger.warning("Connection pool could not refill idle connections: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.exception("Unexpected error in connection pool housekeeping", e);
+        }
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+        logger.info("Connection pool closed");
+    }
+
+    //pool statistics
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    public double getStatementCacheHitRatio() {
+        long hits = getStatementCacheHits();
+        long lookups = hits + getStatementCacheMisses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[active=" + getActiveCount() + ", idle=" + getIdleCount()
+                + ", waiting=" + getWaitingCount() + ", total=" + getTotalCount()
+                + ", max=" + maxSize + ", stmtCacheHits=" + getStatementCacheHits()
+                + ", stmtCacheMisses=" + getStatementCacheMisses() + "]";
+    }
+}
@@ -0,0 +1,32 @@
+package main.java.dao;
+
+/**
+ * jmx view of the connection pool, registered as orderly:type=ConnectionPool.
+ */
+public interface ConnectionPoolMXBean {
+    int getMaxSize();
+    
+    //connections currently lent out
+    int getActiveCount();
+    
+    int getIdleCount();
+    
+    //threads waiting for a connection right now
+    int getWaitingCount();
+    
+    int getTotalCount();
+    
+    //physical connections opened since startup
+    long getCreatedCount();
+    
+    long getTimeoutCount();
+    
+    //time callers spent waiting for a connection since startup
+    long getTotalWaitMillis();
+    
+    long getStatementCacheHits();
+    
+    long getStatementCacheMisses();
+    
+    double getStatementCacheHitRatio();
+}
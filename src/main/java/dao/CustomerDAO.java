@@ -1,35 +1,100 @@
 package main.java.dao;
 
 import main.java.model.Customer;
+import main.java.model.CustomerSearchField;
+import main.java.util.ComponentStats;
+import main.java.util.DotEnv;
+import main.java.util.EntityCache;
 import main.java.util.LoggerUtil;
+import main.java.util.MetricsRegistry;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * customerdao handles data access operations for customers.
  * implements singleton pattern for centralized access.
  * 
+ * findById and findByIds read through a bounded, ttl-limited cache (see
+ * EntityCache) that order loading shares, so a customer that appears on
+ * many orders is read from the database once. writes made through this dao
+ * keep the cache current and callers always get their own copy. findById
+ * misses are coalesced and batched by a BatchLoader.
+ * 
+ * with CUSTOMER_SEARCH_INDEX=true, name and email searches are answered by
+ * an in-memory trigram index (CustomerSearchIndex) kept current by save,
+ * update and delete. it holds every customer, about 0.5 KB of heap each
+ * (roughly 500 MB per million customers), so it is off by default and only
+ * loaded once the application calls startSearchIndexBuild. until then, and
+ * whenever it is off, searches run against the database.
+ * 
  * future enhancements:
- * - add caching mechanism
- * - implement advanced search
  * - add customer grouping/categorization
  */
 public class CustomerDAO {
+    private static final int CACHE_SIZE = DotEnv.getInt("CUSTOMER_CACHE_SIZE", 10_000);
+    private static final long CACHE_TTL_SECONDS = DotEnv.getLong("CUSTOMER_CACHE_TTL_SECONDS", 300);
+    private static final boolean SEARCH_INDEX_ENABLED = DotEnv.getBoolean("CUSTOMER_SEARCH_INDEX", false);
+    //Integer.MIN_VALUE makes mysql connector/j stream rows one at a time instead of buffering the result
+    private static final int STREAM_FETCH_SIZE = DotEnv.getInt("DB_STREAM_FETCH_SIZE", Integer.MIN_VALUE);
+    //rows fetched per requested result when search falls back to sql, the surplus is ranked away
+    private static final int SEARCH_CANDIDATES_PER_RESULT = 4;
+    
     private static CustomerDAO instance;
     private final DatabaseManager dbManager;
     private final LoggerUtil logger;
+    private final MetricsRegistry metrics;
+    private final MetricsRegistry.Counter rowsRead;
+    private final MetricsRegistry.Counter errors;
+    private final EntityCache<String, Customer> cache;
+    private final BatchLoader<String, Customer> loader;
+    private final CustomerSearchIndex searchIndex = new CustomerSearchIndex();
+    private final KeysetPager<Customer> pager = new KeysetPager<Customer>("id", Customer::getId)
+            .sortBy("name", "name", Customer::getName)
+            .sortBy("email", "email", Customer::getEmail);
     
     private CustomerDAO() {
         dbManager = DatabaseManager.getInstance();
         logger = LoggerUtil.getInstance();
+        metrics = MetricsRegistry.getInstance();
+        rowsRead = metrics.counter("CustomerDAO.rowsRead");
+        errors = metrics.counter("CustomerDAO.errors");
+        metrics.registerMBean("DAO", "CustomerDAO", new ComponentStats(metrics, "CustomerDAO"));
+        cache = new EntityCache<>("CustomerCache", CACHE_SIZE, CACHE_TTL_SECONDS, TimeUnit.SECONDS);
+        metrics.gauge("customerCache.size", cache::size);
+        metrics.gauge("customerCache.hitRatio", cache::getHitRatio);
+        loader = new BatchLoader<>("customerLoader", this::loadBatch);
+        metrics.gauge("customerSearchIndex.size", searchIndex::size);
         logger.info("CustomerDAO initialized");
     }
     
+    //loads the search index on a background thread when it is enabled, searches use sql until it is ready
+    public void startSearchIndexBuild() {
+        if (!SEARCH_INDEX_ENABLED) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                rebuildSearchIndex();
+            } catch (RuntimeException e) {
+                //already logged, searches keep using sql
+            }
+        }, "orderly-customer-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
     public static CustomerDAO getInstance() {
         if (instance == null) {
             instance = new CustomerDAO();
@@ -38,133 +103,411 @@ public class CustomerDAO {
     }
     
     public void save(Customer customer) {
-        String sql = "INSERT INTO customers (id, name, email) VALUES (?, ?, ?)";
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, customer.getId());
-            pstmt.setString(2, customer.getName());
-            pstmt.setString(3, customer.getEmail());
-            
-            pstmt.executeUpdate();
-            logger.info("Customer saved: " + customer.getId());
+        metrics.timed("CustomerDAO.save", () -> {
+            String sql = "INSERT INTO customers (id, name, email) VALUES (?, ?, ?)";
             
-        } catch (SQLException e) {
-            logger.exception("Error saving customer", e);
-            throw new RuntimeException("Error saving customer: " + e.getMessage(), e);
-        }
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, customer.getId());
+                pstmt.setString(2, customer.getName());
+                pstmt.setString(3, customer.getEmail());
+                
+                pstmt.executeUpdate();
+                cache.put(customer.getId(), customer.clone());
+                if (SEARCH_INDEX_ENABLED) {
+                    searchIndex.put(customer);
+                }
+                logger.info("Customer saved: {}", customer.getId());
+                
+            } catch (SQLException e) {
+                logger.exception("Error saving customer", e);
+                errors.increment();
+                throw new RuntimeException("Error saving customer: " + e.getMessage(), e);
+            }
+        });
     }
     
     public Customer findById(String id) {
-        String sql = "SELECT * FROM customers WHERE id = ?";
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, id);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Customer(
-                            rs.getString("id"),
-                            rs.getString("name"),
-                            rs.getString("email")
-                    );
-                }
+        return metrics.timed("CustomerDAO.findById", () -> {
+            if (id == null) {
+                return null;
             }
-            
+            Customer customer = cache.getIfPresent(id);
+            if (customer == null) {
+                //loadByIds caches the row unless the customer was written while it was read
+                customer = loader.load(id);
+            }
+            return customer != null ? customer.clone() : null;
+        });
+    }
+    
+    //cache misses of findById, coalesced and batched by the loader
+    private Map<String, Customer> loadBatch(List<String> ids) {
+        Map<String, Customer> found = new HashMap<>();
+        
+        try (Connection conn = dbManager.getConnection()) {
+            loadByIds(conn, ids, found);
         } catch (SQLException e) {
             logger.exception("Error finding customer by ID", e);
+            errors.increment();
             throw new RuntimeException("Error finding customer: " + e.getMessage(), e);
         }
         
-        return null;
+        return found;
     }
     
-    public List<Customer> findAll() {
-        String sql = "SELECT * FROM customers";
-        List<Customer> customers = new ArrayList<>();
+    /**
+     * looks up several customers at once. ids found in the cache are served
+     * from it and the rest are read with IN queries of at most
+     * DB_IN_LIST_SIZE ids each. the map follows the order of the given ids,
+     * holds each repeated id once and has no entry for ids that don't exist.
+     */
+    public Map<String, Customer> findByIds(Collection<String> ids) {
+        try {
+            return metrics.timed("CustomerDAO.findByIds", () -> findByIds(null, ids));
+        } catch (SQLException e) {
+            logger.exception("Error finding customers by ID", e);
+            errors.increment();
+            throw new RuntimeException("Error finding customers: " + e.getMessage(), e);
+        }
+    }
+    
+    //same as findByIds, misses are read on the caller's connection when one is given
+    Map<String, Customer> findByIds(Connection conn, Collection<String> ids) throws SQLException {
+        Set<String> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        Map<String, Customer> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
         
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                customers.add(new Customer(
-                        rs.getString("id"),
-                        rs.getString("name"),
-                        rs.getString("email")
-                ));
+        for (String id : unique) {
+            Customer customer = cache.getIfPresent(id);
+            if (customer != null) {
+                found.put(id, customer);
+            } else {
+                misses.add(id);
             }
-            
-        } catch (SQLException e) {
-            logger.exception("Error finding all customers", e);
-            throw new RuntimeException("Error retrieving customers: " + e.getMessage(), e);
         }
         
+        if (!misses.isEmpty()) {
+            if (conn != null) {
+                loadByIds(conn, misses, found);
+            } else {
+                try (Connection own = dbManager.getConnection()) {
+                    loadByIds(own, misses, found);
+                }
+            }
+        }
+        
+        Map<String, Customer> customers = new LinkedHashMap<>();
+        for (String id : unique) {
+            Customer customer = found.get(id);
+            if (customer != null) {
+                customers.put(id, customer.clone());
+            }
+        }
         return customers;
     }
     
+    private void loadByIds(Connection conn, List<String> ids, Map<String, Customer> found) throws SQLException {
+        long token = cache.beginLoad();
+        try {
+            loadChunks(conn, ids, found, token);
+        } finally {
+            cache.endLoad(token);
+        }
+    }
+    
+    private void loadChunks(Connection conn, List<String> ids, Map<String, Customer> found, long token)
+            throws SQLException {
+        for (List<String> chunk : InLists.chunks(ids)) {
+            List<String> keys = InLists.padded(chunk);
+            String sql = "SELECT * FROM customers WHERE id IN (" + InLists.placeholders(keys.size()) + ")";
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < keys.size(); i++) {
+                    pstmt.setString(i + 1, keys.get(i));
+                }
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rowsRead.increment();
+                        Customer customer = mapResultSetToCustomer(rs);
+                        cache.putIfUnchanged(customer.getId(), customer, token);
+                        found.put(customer.getId(), customer);
+                    }
+                }
+            }
+        }
+    }
+    
+    public List<Customer> findAll() {
+        return metrics.timed("CustomerDAO.findAll", () -> {
+            String sql = "SELECT * FROM customers";
+            List<Customer> customers = new ArrayList<>();
+            
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                
+                while (rs.next()) {
+                    rowsRead.increment();
+                    customers.add(mapResultSetToCustomer(rs));
+                }
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding all customers", e);
+                errors.increment();
+                throw new RuntimeException("Error retrieving customers: " + e.getMessage(), e);
+            }
+            
+            return customers;
+        });
+    }
+    
     public List<Customer> findByName(String name) {
-        String sql = "SELECT * FROM customers WHERE LOWER(name) LIKE ?";
+        return metrics.timed("CustomerDAO.findByName", () -> {
+            if (searchIndex.isReady()) {
+                return searchIndex.search(name, CustomerSearchField.NAME, Integer.MAX_VALUE);
+            }
+            
+            String sql = "SELECT * FROM customers WHERE LOWER(name) LIKE ?";
+            List<Customer> customers = new ArrayList<>();
+            
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, "%" + name.toLowerCase() + "%");
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rowsRead.increment();
+                        customers.add(mapResultSetToCustomer(rs));
+                    }
+                }
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding customers by name", e);
+                errors.increment();
+                throw new RuntimeException("Error searching customers: " + e.getMessage(), e);
+            }
+            
+            return customers;
+        });
+    }
+    
+    /**
+     * substring search over name, email or both, ranked by CustomerSearchIndex.
+     * answered from the in-memory index once it is built; until then (or with
+     * CUSTOMER_SEARCH_INDEX=false) a LIKE query finds the rows and they are
+     * ranked the same way. that query is capped at a few times the limit,
+     * prefix matches first, so a broad term never reads the whole table.
+     */
+    public List<Customer> search(String query, CustomerSearchField field, int limit) {
+        return metrics.timed("CustomerDAO.search", () -> {
+            if (searchIndex.isReady()) {
+                return searchIndex.search(query, field, limit);
+            }
+            
+            if (limit <= 0) {
+                return new ArrayList<Customer>();
+            }
+            
+            String condition;
+            if (field == CustomerSearchField.NAME) {
+                condition = "LOWER(name) LIKE ?";
+            } else if (field == CustomerSearchField.EMAIL) {
+                condition = "LOWER(email) LIKE ?";
+            } else {
+                condition = "(LOWER(name) LIKE ? OR LOWER(email) LIKE ?)";
+            }
+            //the same condition with a prefix pattern sorts prefix matches ahead of the other substrings
+            String sql = "SELECT * FROM customers WHERE " + condition
+                    + " ORDER BY CASE WHEN " + condition + " THEN 0 ELSE 1 END, LENGTH(name), id LIMIT ?";
+            String q = query.trim().toLowerCase();
+            int patterns = field == CustomerSearchField.ANY ? 2 : 1;
+            int candidates = (int) Math.min((long) limit * SEARCH_CANDIDATES_PER_RESULT, Integer.MAX_VALUE);
+            List<Customer> customers = new ArrayList<>();
+            
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                int index = 1;
+                for (int i = 0; i < patterns; i++) {
+                    pstmt.setString(index++, "%" + q + "%");
+                }
+                for (int i = 0; i < patterns; i++) {
+                    pstmt.setString(index++, q + "%");
+                }
+                pstmt.setInt(index, candidates);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rowsRead.increment();
+                        customers.add(mapResultSetToCustomer(rs));
+                    }
+                }
+                
+            } catch (SQLException e) {
+                logger.exception("Error searching customers", e);
+                errors.increment();
+                throw new RuntimeException("Error searching customers: " + e.getMessage(), e);
+            }
+            
+            return CustomerSearchIndex.rank(customers, query, field, limit);
+        });
+    }
+    
+    /**
+     * reloads the search index from a streaming scan of the customers table.
+     * rows are added one at a time as they arrive, so the table is never held
+     * in memory as a list. writes made through this dao during the scan are
+     * kept in favour of the older rows the scan reads. does nothing when
+     * CUSTOMER_SEARCH_INDEX is off, as writes don't maintain the index then.
+     */
+    public void rebuildSearchIndex() {
+        if (!SEARCH_INDEX_ENABLED) {
+            return;
+        }
+        metrics.timed("CustomerDAO.rebuildSearchIndex", () -> {
+            String sql = "SELECT id, name, email FROM customers";
+            searchIndex.beginRebuild();
+            
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                         ResultSet.CONCUR_READ_ONLY)) {
+                
+                pstmt.setFetchSize(STREAM_FETCH_SIZE);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rowsRead.increment();
+                        searchIndex.loadScanned(mapResultSetToCustomer(rs));
+                    }
+                }
+                
+                searchIndex.finishRebuild();
+                logger.info("Customer search index built: {} customers", searchIndex.size());
+                
+            } catch (SQLException e) {
+                searchIndex.abortRebuild();
+                logger.exception("Error building customer search index", e);
+                errors.increment();
+                throw new RuntimeException("Error building customer search index: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    //keyset pages, sorted by "id", "name" or "email"
+    
+    public Page<Customer> findPage(PageCursor cursor, int pageSize) {
+        return metrics.timed("CustomerDAO.findPage", () -> findPage(null, cursor, pageSize));
+    }
+    
+    public Page<Customer> findByNamePage(String name, PageCursor cursor, int pageSize) {
+        return metrics.timed("CustomerDAO.findByNamePage", () -> findPage(name, cursor, pageSize));
+    }
+    
+    private Page<Customer> findPage(String name, PageCursor cursor, int pageSize) {
+        KeysetPager.checkPageSize(pageSize);
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        
+        if (name != null) {
+            conditions.add("LOWER(name) LIKE ?");
+            params.add("%" + name.toLowerCase() + "%");
+        }
+        String keyset = pager.predicate(cursor);
+        if (!keyset.isEmpty()) {
+            conditions.add(keyset);
+            pager.addPredicateParams(cursor, params);
+        }
+        pager.addLimitParam(pageSize, params);
+        
+        String sql = "SELECT * FROM customers"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + pager.orderByAndLimit(cursor);
         List<Customer> customers = new ArrayList<>();
         
         try (Connection conn = dbManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, "%" + name.toLowerCase() + "%");
+            KeysetPager.bind(pstmt, params);
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    customers.add(new Customer(
-                            rs.getString("id"),
-                            rs.getString("name"),
-                            rs.getString("email")
-                    ));
+                    rowsRead.increment();
+                    customers.add(mapResultSetToCustomer(rs));
                 }
             }
             
         } catch (SQLException e) {
-            logger.exception("Error finding customers by name", e);
-            throw new RuntimeException("Error searching customers: " + e.getMessage(), e);
+            logger.exception("Error finding customer page", e);
+            errors.increment();
+            throw new RuntimeException("Error retrieving customers: " + e.getMessage(), e);
         }
         
-        return customers;
+        return pager.toPage(customers, cursor, pageSize);
     }
     
     public void update(Customer customer) {
-        String sql = "UPDATE customers SET name = ?, email = ? WHERE id = ?";
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        metrics.timed("CustomerDAO.update", () -> {
+            String sql = "UPDATE customers SET name = ?, email = ? WHERE id = ?";
             
-            pstmt.setString(1, customer.getName());
-            pstmt.setString(2, customer.getEmail());
-            pstmt.setString(3, customer.getId());
-            
-            pstmt.executeUpdate();
-            logger.info("Customer updated: " + customer.getId());
-            
-        } catch (SQLException e) {
-            logger.exception("Error updating customer", e);
-            throw new RuntimeException("Error updating customer: " + e.getMessage(), e);
-        }
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, customer.getName());
+                pstmt.setString(2, customer.getEmail());
+                pstmt.setString(3, customer.getId());
+                
+                pstmt.executeUpdate();
+                cache.put(customer.getId(), customer.clone());
+                if (SEARCH_INDEX_ENABLED) {
+                    searchIndex.put(customer);
+                }
+                logger.info("Customer updated: {}", customer.getId());
+                
+            } catch (SQLException e) {
+                logger.exception("Error updating customer", e);
+                errors.increment();
+                throw new RuntimeException("Error updating customer: " + e.getMessage(), e);
+            }
+        });
     }
     
     public void delete(String id) {
-        String sql = "DELETE FROM customers WHERE id = ?";
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        metrics.timed("CustomerDAO.delete", () -> {
+            String sql = "DELETE FROM customers WHERE id = ?";
             
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-            logger.info("Customer deleted: " + id);
-            
-        } catch (SQLException e) {
-            logger.exception("Error deleting customer", e);
-            throw new RuntimeException("Error deleting customer: " + e.getMessage(), e);
-        }
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+                cache.invalidate(id);
+                if (SEARCH_INDEX_ENABLED) {
+                    searchIndex.remove(id);
+                }
+                logger.info("Customer deleted: {}", id);
+                
+            } catch (SQLException e) {
+                logger.exception("Error deleting customer", e);
+                errors.increment();
+                throw new RuntimeException("Error deleting customer: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    public EntityCache<String, Customer> getCache() {
+        return cache;
+    }
+    
+    private Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
+        return new Customer(
+                rs.getString("id"),
+                rs.getString("name"),
+                rs.getString("email")
+        );
     }
 }
\ No newline at end of file
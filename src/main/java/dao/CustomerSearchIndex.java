@@ -0,0 +1,412 @@
+package main.java.dao;
+
+import main.java.model.Customer;
+import main.java.model.CustomerSearchField;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * customersearchindex is an in-memory trigram inverted index over customer
+ * names and emails. every lowercased field is cut into overlapping three
+ * character grams, and each gram maps to the sorted list of documents that
+ * contain it. a query is answered by intersecting the lists of its own grams
+ * and checking the few candidates left, so a search touches only documents
+ * that share every gram with the query instead of scanning all customers.
+ *
+ * each field is indexed with a start marker in front, which makes prefix
+ * queries (and two character prefixes) index lookups as well. queries too
+ * short to form a gram fall back to scanning the documents in memory.
+ *
+ * results are ranked: exact match, then prefix of the field, then prefix of
+ * a word inside it (after a space, dot, @ ...), then any other substring;
+ * shorter names first within the same rank.
+ *
+ * updates and deletes leave their old document behind as a dead slot. the
+ * posting lists are compacted once dead slots outnumber live documents.
+ */
+public class CustomerSearchIndex {
+    private static final char START = '\u0001';
+    private static final int GRAM = 3;
+    private static final int MIN_COMPACT = 1_024;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    //guarded by lock
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> documentIds = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private int dead;
+    //ids written while a rebuild is streaming rows, the scanned row is older than the write
+    private Set<String> writtenDuringRebuild;
+    private volatile boolean ready;
+    
+    //adds the customer or replaces its previous version
+    public void put(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(customer.getId());
+            }
+            putLocked(customer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(id);
+            }
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * empties the index ahead of a full load through loadScanned. writes that
+     * arrive while the load is running win over the rows it reads.
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            writtenDuringRebuild = new HashSet<>();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void loadScanned(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild == null || !writtenDuringRebuild.contains(customer.getId())) {
+                putLocked(customer);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void finishRebuild() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    //a failed rebuild leaves an empty index that isn't ready
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            writtenDuringRebuild = null;
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    //true once a rebuild completed, before that results would be incomplete
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    //customers whose field contains the query anywhere, best matches first
+    public List<Customer> search(String query, CustomerSearchField field, int limit) {
+        return find(query, field, false, limit);
+    }
+    
+    //customers whose field starts with the query
+    public List<Customer> searchPrefix(String query, CustomerSearchField field, int limit) {
+        return find(query, field, true, limit);
+    }
+    
+    /**
+     * ranks customers that were found some other way (e.g. a LIKE query run
+     * while the index is still loading) the same way search does.
+     */
+    public static List<Customer> rank(Collection<Customer> customers, String query, CustomerSearchField field, int limit) {
+        String q = normalize(query);
+        TopMatches matches = new TopMatches(limit);
+        for (Customer customer : customers) {
+            matches.offer(new Document(customer), q, field, false);
+        }
+        return matches.toResults();
+    }
+    
+    private List<Customer> find(String query, CustomerSearchField field, boolean prefix, int limit) {
+        String q = normalize(query);
+        TopMatches matches = new TopMatches(limit);
+        
+        lock.readLock().lock();
+        try {
+            List<String> grams = grams(prefix ? START + q : q);
+            if (grams.isEmpty()) {
+                for (Document document : documents) {
+                    matches.offer(document, q, field, prefix);
+                }
+            } else {
+                for (int id : candidates(grams)) {
+                    matches.offer(documents.get(id), q, field, prefix);
+                }
+            }
+            return matches.toResults();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    //documents holding every gram, smallest posting list first
+    private int[] candidates(List<String> grams) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : new HashSet<>(grams)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int count = result.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            PostingList other = lists.get(i);
+            int kept = 0;
+            if (other.size / 8 > count) {
+                //much longer list, binary search it for each remaining id
+                for (int j = 0; j < count; j++) {
+                    if (Arrays.binarySearch(other.ids, 0, other.size, result[j]) >= 0) {
+                        result[kept++] = result[j];
+                    }
+                }
+            } else {
+                //similar lengths, walk both sorted lists together
+                int k = 0;
+                for (int j = 0; j < count && k < other.size; j++) {
+                    while (k < other.size && other.ids[k] < result[j]) {
+                        k++;
+                    }
+                    if (k < other.size && other.ids[k] == result[j]) {
+                        result[kept++] = result[j];
+                    }
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(result, count);
+    }
+    
+    private void putLocked(Customer customer) {
+        removeLocked(customer.getId());
+        
+        Document document = new Document(customer.clone());
+        int id = documents.size();
+        documents.add(document);
+        documentIds.put(customer.getId(), id);
+        
+        Set<String> grams = new HashSet<>(grams(START + document.name));
+        grams.addAll(grams(START + document.email));
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+    
+    private void removeLocked(String customerId) {
+        Integer id = documentIds.remove(customerId);
+        if (id == null) {
+            return;
+        }
+        documents.set(id, null);
+        dead++;
+        if (dead >= MIN_COMPACT && dead > documentIds.size()) {
+            compactLocked();
+        }
+    }
+    
+    //renumbers the live documents and rebuilds the posting lists without dead slots
+    private void compactLocked() {
+        List<Customer> live = new ArrayList<>(documentIds.size());
+        for (Document document : documents) {
+            if (document != null) {
+                live.add(document.customer);
+            }
+        }
+        clearLocked();
+        for (Customer customer : live) {
+            putLocked(customer);
+        }
+    }
+    
+    private void clearLocked() {
+        documents.clear();
+        documentIds.clear();
+        postings.clear();
+        dead = 0;
+    }
+    
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase();
+    }
+    
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+    
+    private static class Document {
+        final Customer customer;
+        final String name;
+        final String email;
+        
+        Document(Customer customer) {
+            this.customer = customer;
+            this.name = normalize(customer.getName());
+            this.email = normalize(customer.getEmail());
+        }
+        
+        //lower is better, -1 when the query doesn't match the field(s)
+        int score(String q, CustomerSearchField field, boolean prefix) {
+            int best = -1;
+            if (field != CustomerSearchField.EMAIL) {
+                best = better(best, score(name, q, prefix));
+            }
+            if (field != CustomerSearchField.NAME) {
+                best = better(best, score(email, q, prefix));
+            }
+            return best;
+        }
+        
+        private static int score(String value, String q, boolean prefix) {
+            if (value.equals(q)) {
+                return 0;
+            }
+            if (value.startsWith(q)) {
+                return 1;
+            }
+            if (prefix) {
+                return -1;
+            }
+            int index = value.indexOf(q);
+            if (index < 0) {
+                return -1;
+            }
+            //any later occurrence may still start a word
+            while (index >= 0) {
+                if (!Character.isLetterOrDigit(value.charAt(index - 1))) {
+                    return 2;
+                }
+                index = value.indexOf(q, index + 1);
+            }
+            return 3;
+        }
+        
+        private static int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            return b < 0 ? a : Math.min(a, b);
+        }
+    }
+    
+    //keeps the best limit matches while candidates are scored, worst on top of the heap
+    private static class TopMatches {
+        private static final Comparator<Match> ORDER = Comparator.<Match>comparingInt(match -> match.score)
+                .thenComparingInt(match -> match.length)
+                .thenComparing(match -> match.document.name)
+                .thenComparing(match -> match.document.customer.getId());
+        
+        private final int limit;
+        private final PriorityQueue<Match> worstFirst = new PriorityQueue<>(ORDER.reversed());
+        
+        TopMatches(int limit) {
+            this.limit = limit;
+        }
+        
+        void offer(Document document, String q, CustomerSearchField field, boolean prefix) {
+            if (document == null || limit <= 0) {
+                return;
+            }
+            int score = document.score(q, field, prefix);
+            if (score < 0) {
+                return;
+            }
+            if (worstFirst.size() >= limit) {
+                //cheap check first, most hits of a broad query can't make the list
+                Match worst = worstFirst.peek();
+                if (score > worst.score || (score == worst.score && document.name.length() > worst.length)) {
+                    return;
+                }
+            }
+            worstFirst.add(new Match(document, score));
+            if (worstFirst.size() > limit) {
+                worstFirst.poll();
+            }
+        }
+        
+        List<Customer> toResults() {
+            List<Match> matches = new ArrayList<>(worstFirst);
+            matches.sort(ORDER);
+            List<Customer> customers = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                customers.add(match.document.customer.clone());
+            }
+            return customers;
+        }
+    }
+    
+    private static class Match {
+        final Document document;
+        final int score;
+        final int length;
+        
+        Match(Document document, int score) {
+            this.document = document;
+            this.score = score;
+            this.length = document.name.length();
+        }
+    }
+    
+    //growable, ascending list of document ids
+    private static class PostingList {
+        int[] ids = new int[4];
+        int size;
+        
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
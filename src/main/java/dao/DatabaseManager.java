@@ -1,27 +1,48 @@
 package main.java.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
 import main.java.util.LoggerUtil;
 import main.java.util.DotEnv;
+import main.java.util.MetricsRegistry;
 
 public class DatabaseManager {
     private static DatabaseManager instance;
     private final LoggerUtil logger;
     
     //load from .env file
+    private static final String DB_DRIVER = DotEnv.get("DB_DRIVER", "com.mysql.cj.jdbc.Driver");
     private static final String DB_URL = DotEnv.get("DB_URL");
     private static final String USER = DotEnv.get("DB_USER");
     private static final String PASS = DotEnv.get("DB_PASSWORD");
     
+    //connection pool settings
+    private static final int POOL_MAX_SIZE = DotEnv.getInt("DB_POOL_MAX_SIZE", 10);
+    private static final int POOL_MIN_IDLE = DotEnv.getInt("DB_POOL_MIN_IDLE", 2);
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = DotEnv.getLong("DB_POOL_ACQUIRE_TIMEOUT_MS", 30_000);
+    private static final long POOL_IDLE_TIMEOUT_MS = DotEnv.getLong("DB_POOL_IDLE_TIMEOUT_MS", 600_000);
+    private static final long POOL_MAX_LIFETIME_MS = DotEnv.getLong("DB_POOL_MAX_LIFETIME_MS", 1_800_000);
+    private static final int POOL_VALIDATION_TIMEOUT_S = DotEnv.getInt("DB_POOL_VALIDATION_TIMEOUT_S", 5);
+    private static final int STATEMENT_CACHE_SIZE = DotEnv.getInt("DB_STATEMENT_CACHE_SIZE", 64);
+    private static final boolean SERVER_PREPARE = DotEnv.getBoolean("DB_SERVER_PREPARE", true);
+    private static final boolean REWRITE_BATCHES = DotEnv.getBoolean("DB_REWRITE_BATCHES", true);
+    
+    private ConnectionPool pool;
+    
     private DatabaseManager() {
         logger = LoggerUtil.getInstance();
         
         try {
             //driver is loaded
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            logger.info("MySQL JDBC driver loaded successfully");
+            Class.forName(DB_DRIVER);
+            logger.info("JDBC driver {} loaded successfully", DB_DRIVER);
+            
+            pool = new ConnectionPool(buildJdbcUrl(), USER, PASS, POOL_MAX_SIZE, POOL_MIN_IDLE,
+                    POOL_ACQUIRE_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_MAX_LIFETIME_MS,
+                    POOL_VALIDATION_TIMEOUT_S, STATEMENT_CACHE_SIZE);
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "orderly-pool-shutdown"));
+            registerPoolGauges(MetricsRegistry.getInstance());
             
             //initialize database
             try (Connection conn = getConnection()) {
@@ -29,8 +50,8 @@ public class DatabaseManager {
                 logger.info("Database initialized successfully");
             }
         } catch (ClassNotFoundException e) {
-            logger.exception("MySQL JDBC driver not found", e);
-            throw new RuntimeException("MySQL JDBC driver not found", e);
+            logger.exception("JDBC driver not found: " + DB_DRIVER, e);
+            throw new RuntimeException("JDBC driver not found: " + DB_DRIVER, e);
         } catch (SQLException e) {
             logger.exception("Error initializing database", e);
             throw new RuntimeException("Error initializing database", e);
@@ -45,68 +66,119 @@ public class DatabaseManager {
     }
     
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return pool.getConnection();
     }
     
-    private void initDatabase(Connection conn) throws SQLException {
-        createProductTable(conn);
-        createCustomerTable(conn);
-        createOrderTable(conn);
-        createOrderItemTable(conn);
+    public ConnectionPool getConnectionPool() {
+        return pool;
     }
     
-    private void createProductTable(Connection conn) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS products (" +
-                "id VARCHAR(50) PRIMARY KEY, " +
-                "name VARCHAR(100) NOT NULL, " +
-                "price DECIMAL(10,2) NOT NULL, " +
-                "description TEXT, " +
-                "stock INT NOT NULL" +
-                ")";
-        
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-        }
+    /**
+     * reports every statement run on connections leased after this call,
+     * e.g. to count queries per operation in tests. listeners cost nothing
+     * until one is added.
+     */
+    public void addStatementListener(StatementListener listener) {
+        StatementTracer.addListener(listener);
     }
     
-    private void createCustomerTable(Connection conn) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS customers (" +
-                "id VARCHAR(50) PRIMARY KEY, " +
-                "name VARCHAR(100) NOT NULL, " +
-                "email VARCHAR(100) NOT NULL" +
-                ")";
-        
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-        }
+    public void removeStatementListener(StatementListener listener) {
+        StatementTracer.removeListener(listener);
     }
     
-    private void createOrderTable(Connection conn) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS orders (" +
-                "id VARCHAR(50) PRIMARY KEY, " +
-                "customer_id VARCHAR(50) NOT NULL, " +
-                "order_date TIMESTAMP NOT NULL, " +
-                "status VARCHAR(20) NOT NULL, " +
-                "FOREIGN KEY (customer_id) REFERENCES customers(id)" +
-                ")";
-        
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
+    //adds driver options to the configured url unless they were set explicitly
+    private static String buildJdbcUrl() {
+        String url = DB_URL;
+        if (url == null || !url.startsWith("jdbc:mysql:")) {
+            return url;
+        }
+        if (SERVER_PREPARE) {
+            //real server-side statements, so the per-connection cache skips the parse on the server too
+            url = withUrlProperty(url, "useServerPrepStmts", "true");
         }
+        if (REWRITE_BATCHES) {
+            //lets the driver turn insert batches into multi-row inserts
+            url = withUrlProperty(url, "rewriteBatchedStatements", "true");
+        }
+        return url;
     }
     
-    private void createOrderItemTable(Connection conn) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS order_items (" +
-                "order_id VARCHAR(50) NOT NULL, " +
-                "product_id VARCHAR(50) NOT NULL, " +
-                "quantity INT NOT NULL, " +
-                "PRIMARY KEY (order_id, product_id), " +
-                "FOREIGN KEY (order_id) REFERENCES orders(id), " +
-                "FOREIGN KEY (product_id) REFERENCES products(id)" +
-                ")";
-        
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
+    private static String withUrlProperty(String url, String key, String value) {
+        if (url.contains(key + "=")) {
+            return url;
         }
+        return url + (url.contains("?") ? "&" : "?") + key + "=" + value;
+    }
+    
+    private void initDatabase(Connection conn) throws SQLException {
+        new SchemaMigrator(migrations()).migrate(conn);
+    }
+    
+    /**
+     * schema history, applied in version order. never edit a migration that
+     * has shipped, add a new one instead (the checksum check will refuse to
+     * start otherwise).
+     */
+    private static List<Migration> migrations() {
+        return List.of(
+                new Migration(1, "create base tables",
+                        "CREATE TABLE IF NOT EXISTS products (" +
+                                "id VARCHAR(50) PRIMARY KEY, " +
+                                "name VARCHAR(100) NOT NULL, " +
+                                "price DECIMAL(10,2) NOT NULL, " +
+                                "description TEXT, " +
+                                "stock INT NOT NULL" +
+                                ")",
+                        "CREATE TABLE IF NOT EXISTS customers (" +
+                                "id VARCHAR(50) PRIMARY KEY, " +
+                                "name VARCHAR(100) NOT NULL, " +
+                                "email VARCHAR(100) NOT NULL" +
+                                ")",
+                        "CREATE TABLE IF NOT EXISTS orders (" +
+                                "id VARCHAR(50) PRIMARY KEY, " +
+                                "customer_id VARCHAR(50) NOT NULL, " +
+                                "order_date TIMESTAMP NOT NULL, " +
+                                "status VARCHAR(20) NOT NULL, " +
+                                "FOREIGN KEY (customer_id) REFERENCES customers(id)" +
+                                ")",
+                        "CREATE TABLE IF NOT EXISTS order_items (" +
+                                "order_id VARCHAR(50) NOT NULL, " +
+                                "product_id VARCHAR(50) NOT NULL, " +
+                                "quantity INT NOT NULL, " +
+                                "PRIMARY KEY (order_id, product_id), " +
+                                "FOREIGN KEY (order_id) REFERENCES orders(id), " +
+                                "FOREIGN KEY (product_id) REFERENCES products(id)" +
+                                ")"),
+                //orders by customer, newest first, also serves the customer foreign key
+                new Migration(2, "index orders by customer and date",
+                        "CREATE INDEX idx_orders_customer_date ON orders (customer_id, order_date)"),
+                //date range searches and exports
+                new Migration(3, "index orders by date",
+                        "CREATE INDEX idx_orders_order_date ON orders (order_date)"),
+                //status filters, e.g. open orders within a period
+                new Migration(4, "index orders by status",
+                        "CREATE INDEX idx_orders_status_date ON orders (status, order_date)"),
+                //order lines by product, also serves the product foreign key
+                new Migration(5, "index order items by product",
+                        "CREATE INDEX idx_order_items_product ON order_items (product_id)"),
+                //price range and name searches
+                new Migration(6, "index products for searches",
+                        "CREATE INDEX idx_products_price ON products (price)",
+                        "CREATE INDEX idx_products_name ON products (name)",
+                        "CREATE FULLTEXT INDEX ft_products_name ON products (name)"),
+                //customer pages by name or email, the primary key tail breaks ties
+                new Migration(7, "index customers for paging and searches",
+                        "CREATE INDEX idx_customers_name ON customers (name)",
+                        "CREATE INDEX idx_customers_email ON customers (email)")
+        );
+    }
+
+    private void registerPoolGauges(MetricsRegistry metrics) {
+        metrics.registerMBean("ConnectionPool", null, pool);
+        metrics.gauge("pool.active", pool::getActiveCount);
+        metrics.gauge("pool.idle", pool::getIdleCount);
+        metrics.gauge("pool.waiting", pool::getWaitingCount);
+        metrics.gauge("pool.timeouts", pool::getTimeoutCount);
+        metrics.gauge("pool.statementCacheHitRatio", pool::getStatementCacheHitRatio);
     }
 }
@@ -0,0 +1,64 @@
+package main.java.dao;
+
+import main.java.util.DotEnv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * inlists splits key sets for "WHERE id IN (?, ...)" lookups. very long
+ * lists run into driver and server limits (placeholder counts, packet size)
+ * and plan worse, so keys are sent in chunks of DB_IN_LIST_SIZE.
+ *
+ * lists are also padded to a few fixed lengths by repeating the last key.
+ * every distinct length is its own sql text, and one text per key count
+ * would crowd the hot statements out of the per-connection statement cache
+ * (and, with server-side prepares, cost a prepare per text). a duplicated key
+ * doesn't change what an IN list matches.
+ */
+final class InLists {
+    static final int MAX_SIZE = Math.max(1, DotEnv.getInt("DB_IN_LIST_SIZE", 1000));
+    private static final int[] BUCKETS = { 1, 4, 16, 64, 256 };
+    
+    private InLists() {
+    }
+    
+    //"?, ?, ?" for the given number of keys
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    static <T> List<List<T>> chunks(List<T> keys) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += MAX_SIZE) {
+            chunks.add(keys.subList(from, Math.min(keys.size(), from + MAX_SIZE)));
+        }
+        return chunks;
+    }
+    
+    //length a list of count keys is padded to, the next bucket up to MAX_SIZE
+    static int paddedSize(int count) {
+        if (count >= MAX_SIZE) {
+            return count;
+        }
+        for (int bucket : BUCKETS) {
+            if (bucket >= count) {
+                return Math.min(bucket, MAX_SIZE);
+            }
+        }
+        return MAX_SIZE;
+    }
+    
+    //the keys followed by copies of the last one, up to paddedSize
+    static <T> List<T> padded(List<T> keys) {
+        List<T> padded = new ArrayList<>(keys);
+        if (!keys.isEmpty()) {
+            T last = keys.get(keys.size() - 1);
+            while (padded.size() < paddedSize(keys.size())) {
+                padded.add(last);
+            }
+        }
+        return padded;
+    }
+}
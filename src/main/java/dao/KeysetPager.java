@@ -0,0 +1,126 @@
+package main.java.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * keysetpager builds the sql pieces for keyset pagination of one entity:
+ * "WHERE (col > ? OR (col = ? AND id > ?)) ORDER BY col, id LIMIT ?". each
+ * page is an index range scan that starts right after the previous page, so
+ * page 10,000 costs the same as page 1 (unlike OFFSET). a descending cursor
+ * flips the comparisons to < and sorts both columns DESC.
+ */
+class KeysetPager<T> {
+    static final int MAX_PAGE_SIZE = 1_000;
+
+    private final String idColumn;
+    private final Function<T, String> idExtractor;
+    private final Map<String, SortColumn<T>> sortColumns = new HashMap<>();
+
+    KeysetPager(String idColumn, Function<T, String> idExtractor) {
+        this.idColumn = idColumn;
+        this.idExtractor = idExtractor;
+        sortColumns.put("id", new SortColumn<>(idColumn, idExtractor::apply));
+    }
+
+    KeysetPager<T> sortBy(String name, String sqlColumn, Function<T, Object> extractor) {
+        sortColumns.put(name, new SortColumn<>(sqlColumn, extractor));
+        return this;
+    }
+
+    //condition selecting rows after the cursor, empty on the first page
+    String predicate(PageCursor cursor) {
+        if (cursor.isFirstPage()) {
+            return "";
+        }
+        String column = column(cursor).sqlColumn;
+        String after = cursor.isDescending() ? " < ?" : " > ?";
+        if (column.equals(idColumn)) {
+            return idColumn + after;
+        }
+        return "(" + column + after + " OR (" + column + " = ? AND " + idColumn + after + "))";
+    }
+
+    void addPredicateParams(PageCursor cursor, List<Object> params) {
+        if (cursor.isFirstPage()) {
+            return;
+        }
+        if (column(cursor).sqlColumn.equals(idColumn)) {
+            params.add(cursor.getLastId());
+        } else {
+            params.add(cursor.getLastValue());
+            params.add(cursor.getLastValue());
+            params.add(cursor.getLastId());
+        }
+    }
+
+    //ordering plus a limit of one extra row, used to tell whether another page exists
+    String orderByAndLimit(PageCursor cursor) {
+        String column = column(cursor).sqlColumn;
+        String direction = cursor.isDescending() ? " DESC" : "";
+        String orderBy = column.equals(idColumn)
+                ? idColumn + direction
+                : column + direction + ", " + idColumn + direction;
+        return " ORDER BY " + orderBy + " LIMIT ?";
+    }
+
+    void addLimitParam(int pageSize, List<Object> params) {
+        params.add(pageSize + 1);
+    }
+
+    Page<T> toPage(List<T> rows, PageCursor cursor, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        T last = items.get(items.size() - 1);
+        PageCursor next = new PageCursor(cursor.getSortColumn(),
+                column(cursor).extractor.apply(last), idExtractor.apply(last), cursor.isDescending());
+        return new Page<>(items, next);
+    }
+
+    static int checkPageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return pageSize;
+    }
+
+    static void bind(PreparedStatement pstmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            if (value instanceof LocalDateTime) {
+                pstmt.setTimestamp(i + 1, Timestamp.valueOf((LocalDateTime) value));
+            } else {
+                pstmt.setObject(i + 1, value);
+            }
+        }
+    }
+
+    private SortColumn<T> column(PageCursor cursor) {
+        SortColumn<T> column = sortColumns.get(cursor.getSortColumn());
+        if (column == null) {
+            throw new IllegalArgumentException("Unsupported sort column: " + cursor.getSortColumn()
+                    + ", expected one of " + sortColumns.keySet());
+        }
+        return column;
+    }
+
+    private static class SortColumn<T> {
+        final String sqlColumn;
+        final Function<T, Object> extractor;
+
+        SortColumn(String sqlColumn, Function<T, Object> extractor) {
+            this.sqlColumn = sqlColumn;
+            this.extractor = extractor;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package main.java.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * migration is one numbered schema change made of one or more sql
+ * statements. once applied, its checksum is stored in schema_version so an
+ * edited migration is detected instead of silently diverging.
+ */
+class Migration {
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+
+    Migration(int version, String description, String... statements) {
+        this.version = version;
+        this.description = description;
+        this.statements = List.of(statements);
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    List<String> getStatements() {
+        return statements;
+    }
+
+    long getChecksum() {
+        CRC32 crc = new CRC32();
+        for (String statement : statements) {
+            crc.update(statement.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return crc.getValue();
+    }
+}
@@ -1,12 +1,28 @@
 package main.java.dao;
 
+import main.java.exception.InsufficientStockException;
+import main.java.exception.ProductNotFoundException;
 import main.java.model.*;
+import main.java.util.DotEnv;
+import main.java.util.ComponentStats;
 import main.java.util.LoggerUtil;
+import main.java.util.MetricsRegistry;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * orderdao handles data access operations for orders.
@@ -18,17 +34,45 @@ import java.util.List;
  * - implement transaction handling
  */
 public class OrderDAO {
+    //order lines per executeBatch call
+    private static final int ITEM_BATCH_SIZE = Math.max(1, DotEnv.getInt("DB_BATCH_SIZE", 1000));
+    
+    //customers are resolved through CustomerDAO's cache instead of being joined to every order row
+    private static final String ORDER_SELECT = "SELECT o.id, o.customer_id, o.order_date, o.status FROM orders o";
+    //products are resolved through ProductDAO.findByIds for the same reason
+    private static final String ITEM_SELECT = "SELECT oi.order_id, oi.product_id, oi.quantity FROM order_items oi";
+    
+    //one row per order line, orders without lines still produce one row
+    private static final String STREAM_SELECT = "SELECT o.id, o.customer_id, o.order_date, o.status, " +
+            "c.name AS customer_name, c.email AS customer_email, oi.quantity, p.id AS product_id, " +
+            "p.name AS product_name, p.price AS product_price, p.description AS product_description, " +
+            "p.stock AS product_stock " +
+            "FROM orders o LEFT JOIN customers c ON c.id = o.customer_id " +
+            "LEFT JOIN (order_items oi JOIN products p ON p.id = oi.product_id) ON oi.order_id = o.id " +
+            "ORDER BY o.id";
+    //Integer.MIN_VALUE makes mysql connector/j stream rows one at a time instead of buffering the result
+    private static final int STREAM_FETCH_SIZE = DotEnv.getInt("DB_STREAM_FETCH_SIZE", Integer.MIN_VALUE);
+    
     private static OrderDAO instance;
     private final DatabaseManager dbManager;
     private final LoggerUtil logger;
-    private final CustomerDAO customerDAO;
+    private final MetricsRegistry metrics;
+    private final MetricsRegistry.Counter rowsRead;
+    private final MetricsRegistry.Counter errors;
     private final ProductDAO productDAO;
+    private final CustomerDAO customerDAO;
+    private final KeysetPager<Order> pager = new KeysetPager<Order>("o.id", Order::getId)
+            .sortBy("order_date", "o.order_date", Order::getOrderDate);
     
     private OrderDAO() {
         dbManager = DatabaseManager.getInstance();
         logger = LoggerUtil.getInstance();
-        customerDAO = CustomerDAO.getInstance();
+        metrics = MetricsRegistry.getInstance();
+        rowsRead = metrics.counter("OrderDAO.rowsRead");
+        errors = metrics.counter("OrderDAO.errors");
+        metrics.registerMBean("DAO", "OrderDAO", new ComponentStats(metrics, "OrderDAO"));
         productDAO = ProductDAO.getInstance();
+        customerDAO = CustomerDAO.getInstance();
         logger.info("OrderDAO initialized");
     }
     
@@ -40,248 +84,623 @@ public class OrderDAO {
     }
     
     public void save(Order order) {
+        metrics.timed("OrderDAO.save", () -> {
+            long start = System.nanoTime();
+            Connection conn = null;
+            try {
+                conn = dbManager.getConnection();
+                conn.setAutoCommit(false);
+                
+                //round trips are header + item batches + commit
+                int roundTrips = insertOrder(conn, order) + 1;
+
+                conn.commit();
+                if (logger.isInfoEnabled()) {
+                    logger.timed(order.getId(), (System.nanoTime() - start) / 1_000_000,
+                            "Order saved: {} ({} items, {} round trips)",
+                            order.getId(), order.getItems().size(), roundTrips);
+                }
+                
+            } catch (SQLException e) {
+                logger.exception("Error saving order", e);
+                errors.increment();
+                rollback(conn);
+                throw new RuntimeException("Error saving order: " + e.getMessage(), e);
+            } finally {
+                close(conn);
+            }
+        });
+    }
+    
+    /**
+     * places an order in a single transaction: stock for every product is
+     * taken with conditional updates (see ProductDAO.decrementStock) and the
+     * order is inserted on the same connection. if any product is missing or
+     * short on stock, or the insert fails, everything is rolled back so stock
+     * is never lost and concurrent orders can't oversell.
+     */
+    public void placeOrder(Order order) throws ProductNotFoundException, InsufficientStockException {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        
+        //the checked exceptions differ, so this is timed by hand instead of through metrics.timed
+        MetricsRegistry.Timing timing = metrics.time("OrderDAO.placeOrder");
+        long start = System.nanoTime();
         Connection conn = null;
         try {
             conn = dbManager.getConnection();
             conn.setAutoCommit(false);
             
-            //save order header
-            String orderSql = "INSERT INTO orders (id, customer_id, order_date, status) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(orderSql)) {
-                pstmt.setString(1, order.getId());
-                pstmt.setString(2, order.getCustomer().getId());
-                pstmt.setTimestamp(3, Timestamp.valueOf(order.getOrderDate()));
-                pstmt.setString(4, order.getStatus().toString());
-                pstmt.executeUpdate();
-            }
-            
-            //save order items
-            String itemSql = "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(itemSql)) {
-                for (OrderItem item : order.getItems()) {
-                    pstmt.setString(1, order.getId());
-                    pstmt.setString(2, item.getProduct().getId());
-                    pstmt.setInt(3, item.getQuantity());
-                    pstmt.executeUpdate();
-                }
-            }
+            //round trips are stock update + insert statements + commit
+            int roundTrips = productDAO.decrementStock(conn, quantities);
+            roundTrips += insertOrder(conn, order) + 1;
             
             conn.commit();
-            logger.info("Order saved: " + order.getId());
+            productDAO.invalidateCache(quantities.keySet());
+            if (logger.isInfoEnabled()) {
+                logger.timed(order.getId(), (System.nanoTime() - start) / 1_000_000,
+                        "Order placed: {} ({} items, {} round trips)",
+                        order.getId(), order.getItems().size(), roundTrips);
+            }
             
+        } catch (ProductNotFoundException | InsufficientStockException e) {
+            rollback(conn);
+            throw e;
         } catch (SQLException e) {
-            logger.exception("Error saving order", e);
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    logger.exception("Error rolling back transaction", ex);
-                }
-            }
-            throw new RuntimeException("Error saving order: " + e.getMessage(), e);
+            logger.exception("Error placing order", e);
+            errors.increment();
+            rollback(conn);
+            throw new RuntimeException("Error placing order: " + e.getMessage(), e);
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    logger.exception("Error closing connection", e);
-                }
-            }
+            close(conn);
+            timing.close();
         }
     }
     
-    public Order findById(String id) {
-        String sql = "SELECT * FROM orders WHERE id = ?";
+    /**
+     * inserts the order header and its lines on the caller's connection.
+     *
+     * @return number of statements sent to the database
+     */
+    private int insertOrder(Connection conn, Order order) throws SQLException {
+        String orderSql = "INSERT INTO orders (id, customer_id, order_date, status) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(orderSql)) {
+            pstmt.setString(1, order.getId());
+            pstmt.setString(2, order.getCustomer().getId());
+            pstmt.setTimestamp(3, Timestamp.valueOf(order.getOrderDate()));
+            pstmt.setString(4, order.getStatus().toString());
+            pstmt.executeUpdate();
+        }
         
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, id);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Order order = mapResultSetToOrder(rs);
-                    loadOrderItems(order);
-                    return order;
+        return 1 + insertOrderItems(conn, order);
+    }
+    
+    /**
+     * inserts the order lines with jdbc batching, flushing every
+     * ITEM_BATCH_SIZE rows so very large orders don't build one huge packet.
+     * with rewriteBatchedStatements the driver sends each flush as a single
+     * multi-row insert.
+     *
+     * @return number of batches sent to the database
+     */
+    private int insertOrderItems(Connection conn, Order order) throws SQLException {
+        String itemSql = "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)";
+        int batches = 0;
+        int pending = 0;
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(itemSql)) {
+            for (OrderItem item : order.getItems()) {
+                pstmt.setString(1, order.getId());
+                pstmt.setString(2, item.getProduct().getId());
+                pstmt.setInt(3, item.getQuantity());
+                pstmt.addBatch();
+                
+                if (++pending == ITEM_BATCH_SIZE) {
+                    pstmt.executeBatch();
+                    batches++;
+                    pending = 0;
                 }
             }
             
-        } catch (SQLException e) {
-            logger.exception("Error finding order by ID", e);
-            throw new RuntimeException("Error finding order: " + e.getMessage(), e);
+            if (pending > 0) {
+                pstmt.executeBatch();
+                batches++;
+            }
         }
         
-        return null;
+        return batches;
+    }
+    
+    public Order findById(String id) {
+        return metrics.timed("OrderDAO.findById", () -> {
+            try {
+                List<Order> orders = loadOrderGraph(" WHERE o.id = ?", pstmt -> pstmt.setString(1, id));
+                return orders.isEmpty() ? null : orders.get(0);
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding order by ID", e);
+                errors.increment();
+                throw new RuntimeException("Error finding order: " + e.getMessage(), e);
+            }
+        });
     }
     
     public List<Order> findAll() {
-        String sql = "SELECT * FROM orders";
-        List<Order> orders = new ArrayList<>();
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                loadOrderItems(order);
-                orders.add(order);
+        return metrics.timed("OrderDAO.findAll", () -> {
+            try {
+                return loadOrderGraph("", pstmt -> { });
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding all orders", e);
+                errors.increment();
+                throw new RuntimeException("Error retrieving orders: " + e.getMessage(), e);
             }
+        });
+    }
+    
+    public List<Order> findByCustomerId(String customerId) {
+        return metrics.timed("OrderDAO.findByCustomerId", () -> {
+            try {
+                return loadOrderGraph(" WHERE o.customer_id = ?", pstmt -> pstmt.setString(1, customerId));
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding orders by customer ID", e);
+                errors.increment();
+                throw new RuntimeException("Error searching orders: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    public List<Order> findByDateRange(LocalDateTime start, LocalDateTime end) {
+        return metrics.timed("OrderDAO.findByDateRange", () -> {
+            try {
+                return loadOrderGraph(" WHERE o.order_date BETWEEN ? AND ?", pstmt -> {
+                    pstmt.setTimestamp(1, Timestamp.valueOf(start));
+                    pstmt.setTimestamp(2, Timestamp.valueOf(end));
+                });
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding orders by date range", e);
+                errors.increment();
+                throw new RuntimeException("Error searching orders: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * streams every order with its customer and items from a single
+     * forward-only, read-only result set, so memory use stays flat no matter
+     * how many orders exist. the stream holds a pooled connection until it is
+     * closed and must be used in a try-with-resources block. its timing also
+     * ends on close, so it covers reading the rows and not just the query.
+     */
+    public Stream<Order> streamAll() {
+        MetricsRegistry.Timing timing = metrics.time("OrderDAO.streamAll");
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = dbManager.getConnection();
+            //the three-argument prepare bypasses the statement cache, this statement is single use
+            pstmt = conn.prepareStatement(STREAM_SELECT, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = pstmt.executeQuery();
             
         } catch (SQLException e) {
-            logger.exception("Error finding all orders", e);
+            closeStream(rs, pstmt, conn);
+            timing.close();
+            logger.exception("Error opening order stream", e);
+            errors.increment();
             throw new RuntimeException("Error retrieving orders: " + e.getMessage(), e);
         }
         
-        return orders;
+        ResultSet results = rs;
+        PreparedStatement statement = pstmt;
+        Connection connection = conn;
+        return StreamSupport.stream(new OrderSpliterator(results), false)
+                .onClose(() -> closeStream(results, statement, connection))
+                .onClose(timing::close);
     }
     
-    public List<Order> findByCustomerId(String customerId) {
-        String sql = "SELECT * FROM orders WHERE customer_id = ?";
-        List<Order> orders = new ArrayList<>();
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, customerId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Order order = mapResultSetToOrder(rs);
-                    loadOrderItems(order);
-                    orders.add(order);
+    //visits every order in id order, returns the number of orders visited
+    public long forEachOrder(Consumer<Order> visitor) {
+        return metrics.timed("OrderDAO.forEachOrder", () -> {
+            long count = 0;
+            try (Stream<Order> orders = streamAll()) {
+                for (Order order : (Iterable<Order>) orders::iterator) {
+                    visitor.accept(order);
+                    count++;
                 }
             }
+            return count;
+        });
+    }
+    
+    //keyset pages, sorted by "id" or "order_date"
+    
+    public Page<Order> findPage(PageCursor cursor, int pageSize) {
+        return metrics.timed("OrderDAO.findPage", () -> {
+            try {
+                return loadOrderPage("", List.of(), cursor, pageSize);
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding order page", e);
+                errors.increment();
+                throw new RuntimeException("Error retrieving orders: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    public Page<Order> findByCustomerIdPage(String customerId, PageCursor cursor, int pageSize) {
+        return metrics.timed("OrderDAO.findByCustomerIdPage", () -> {
+            try {
+                return loadOrderPage("o.customer_id = ?", List.of(customerId), cursor, pageSize);
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding order page by customer ID", e);
+                errors.increment();
+                throw new RuntimeException("Error searching orders: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    public Page<Order> findByDateRangePage(LocalDateTime start, LocalDateTime end, PageCursor cursor, int pageSize) {
+        return metrics.timed("OrderDAO.findByDateRangePage", () -> {
+            try {
+                return loadOrderPage("o.order_date BETWEEN ? AND ?", List.of(start, end), cursor, pageSize);
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding order page by date range", e);
+                errors.increment();
+                throw new RuntimeException("Error searching orders: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    public void update(Order order) {
+        metrics.timed("OrderDAO.update", () -> {
+            String sql = "UPDATE orders SET status = ? WHERE id = ?";
             
-        } catch (SQLException e) {
-            logger.exception("Error finding orders by customer ID", e);
-            throw new RuntimeException("Error searching orders: " + e.getMessage(), e);
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, order.getStatus().toString());
+                pstmt.setString(2, order.getId());
+                
+                pstmt.executeUpdate();
+                logger.info("Order updated: {}", order.getId());
+                
+            } catch (SQLException e) {
+                logger.exception("Error updating order", e);
+                errors.increment();
+                throw new RuntimeException("Error updating order: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    public void delete(String id) {
+        metrics.timed("OrderDAO.delete", () -> {
+            Connection conn = null;
+            try {
+                conn = dbManager.getConnection();
+                conn.setAutoCommit(false);
+                
+                //delete order items first
+                String deleteItemsSql = "DELETE FROM order_items WHERE order_id = ?";
+                try (PreparedStatement pstmt = conn.prepareStatement(deleteItemsSql)) {
+                    pstmt.setString(1, id);
+                    pstmt.executeUpdate();
+                }
+                
+                //then delete order
+                String deleteOrderSql = "DELETE FROM orders WHERE id = ?";
+                try (PreparedStatement pstmt = conn.prepareStatement(deleteOrderSql)) {
+                    pstmt.setString(1, id);
+                    pstmt.executeUpdate();
+                }
+                
+                conn.commit();
+                logger.info("Order deleted: {}", id);
+                
+            } catch (SQLException e) {
+                logger.exception("Error deleting order", e);
+                errors.increment();
+                rollback(conn);
+                throw new RuntimeException("Error deleting order: " + e.getMessage(), e);
+            } finally {
+                close(conn);
+            }
+        });
+    }
+    
+    private void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                logger.exception("Error rolling back transaction", ex);
+                errors.increment();
+            }
         }
-        
-        return orders;
     }
     
-    public List<Order> findByDateRange(LocalDateTime start, LocalDateTime end) {
-        String sql = "SELECT * FROM orders WHERE order_date BETWEEN ? AND ?";
-        List<Order> orders = new ArrayList<>();
+    private void close(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                logger.exception("Error closing connection", e);
+                errors.increment();
+            }
+        }
+    }
+    
+    /**
+     * loads every order matching the where clause together with its customer,
+     * items and products using set-based queries on one connection: order
+     * headers, one findByIds for the customers not already cached, then all
+     * matching order lines and one findByIds for their products. the graph is
+     * stitched in memory
+     * through identity maps, so the number of queries no longer depends on how
+     * many orders are returned and each customer/product is materialised only
+     * once per call.
+     */
+    private List<Order> loadOrderGraph(String whereClause, StatementBinder binder) throws SQLException {
+        Map<String, Order> orders = new LinkedHashMap<>();
         
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setTimestamp(1, Timestamp.valueOf(start));
-            pstmt.setTimestamp(2, Timestamp.valueOf(end));
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Order order = mapResultSetToOrder(rs);
-                    loadOrderItems(order);
-                    orders.add(order);
-                }
+        try (Connection conn = dbManager.getConnection()) {
+            readOrders(conn, ORDER_SELECT + whereClause, binder, orders);
+            if (!orders.isEmpty()) {
+                readItems(conn, ITEM_SELECT + " JOIN orders o ON o.id = oi.order_id" + whereClause, binder, orders);
             }
-            
-        } catch (SQLException e) {
-            logger.exception("Error finding orders by date range", e);
-            throw new RuntimeException("Error searching orders: " + e.getMessage(), e);
         }
         
-        return orders;
+        return new ArrayList<>(orders.values());
     }
     
-    public void update(Order order) {
-        String sql = "UPDATE orders SET status = ? WHERE id = ?";
+    /**
+     * loads one keyset page of orders. the header query is limited to the
+     * page, so its lines are fetched with a single IN list of the page's
+     * order ids instead of repeating the filter.
+     */
+    private Page<Order> loadOrderPage(String filter, List<Object> filterParams,
+            PageCursor cursor, int pageSize) throws SQLException {
+        KeysetPager.checkPageSize(pageSize);
         
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, order.getStatus().toString());
-            pstmt.setString(2, order.getId());
-            
-            pstmt.executeUpdate();
-            logger.info("Order updated: " + order.getId());
+        List<Object> params = new ArrayList<>(filterParams);
+        String keyset = pager.predicate(cursor);
+        pager.addPredicateParams(cursor, params);
+        pager.addLimitParam(pageSize, params);
+        
+        String where = filter;
+        if (!keyset.isEmpty()) {
+            where = where.isEmpty() ? keyset : where + " AND " + keyset;
+        }
+        String orderSql = ORDER_SELECT + (where.isEmpty() ? "" : " WHERE " + where) + pager.orderByAndLimit(cursor);
+        
+        Map<String, Order> orders = new LinkedHashMap<>();
+        try (Connection conn = dbManager.getConnection()) {
+            readOrders(conn, orderSql, pstmt -> KeysetPager.bind(pstmt, params), orders);
             
-        } catch (SQLException e) {
-            logger.exception("Error updating order", e);
-            throw new RuntimeException("Error updating order: " + e.getMessage(), e);
+            if (!orders.isEmpty()) {
+                List<Object> orderIds = InLists.padded(new ArrayList<>(orders.keySet()));
+                String itemSql = ITEM_SELECT + " WHERE oi.order_id IN (" + InLists.placeholders(orderIds.size()) + ")";
+                readItems(conn, itemSql, pstmt -> KeysetPager.bind(pstmt, orderIds), orders);
+            }
         }
+        
+        return pager.toPage(new ArrayList<>(orders.values()), cursor, pageSize);
     }
     
-    public void delete(String id) {
-        Connection conn = null;
-        try {
-            conn = dbManager.getConnection();
-            conn.setAutoCommit(false);
-            
-            //delete order items first
-            String deleteItemsSql = "DELETE FROM order_items WHERE order_id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(deleteItemsSql)) {
-                pstmt.setString(1, id);
-                pstmt.executeUpdate();
-            }
-            
-            //then delete order
-            String deleteOrderSql = "DELETE FROM orders WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(deleteOrderSql)) {
-                pstmt.setString(1, id);
-                pstmt.executeUpdate();
-            }
-            
-            conn.commit();
-            logger.info("Order deleted: " + id);
-            
-        } catch (SQLException e) {
-            logger.exception("Error deleting order", e);
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    logger.exception("Error rolling back transaction", ex);
+    private void readOrders(Connection conn, String sql, StatementBinder binder, Map<String, Order> orders)
+            throws SQLException {
+        List<OrderRow> rows = new ArrayList<>();
+        Set<String> customerIds = new HashSet<>();
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            binder.bind(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rowsRead.increment();
+                    OrderRow row = new OrderRow(rs);
+                    rows.add(row);
+                    customerIds.add(row.customerId);
                 }
             }
-            throw new RuntimeException("Error deleting order: " + e.getMessage(), e);
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    logger.exception("Error closing connection", e);
+        }
+        
+        //one copy per customer, shared by all of that customer's orders
+        Map<String, Customer> customers = customerDAO.findByIds(conn, customerIds);
+        for (OrderRow row : rows) {
+            Order order = new Order(row.id, customers.get(row.customerId), row.orderDate);
+            order.setStatus(row.status);
+            orders.put(order.getId(), order);
+        }
+    }
+    
+    private void readItems(Connection conn, String sql, StatementBinder binder, Map<String, Order> orders)
+            throws SQLException {
+        List<ItemRow> rows = new ArrayList<>();
+        Set<String> productIds = new HashSet<>();
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            binder.bind(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rowsRead.increment();
+                    ItemRow row = new ItemRow(rs);
+                    rows.add(row);
+                    productIds.add(row.productId);
                 }
             }
         }
+        
+        Map<String, Product> products = productDAO.findByIds(conn, productIds);
+        for (ItemRow row : rows) {
+            //orders inserted between the queries are not part of this result
+            Order order = orders.get(row.orderId);
+            Product product = products.get(row.productId);
+            if (order != null && product != null) {
+                order.addItem(product, row.quantity);
+            }
+        }
     }
     
-    private Order mapResultSetToOrder(ResultSet rs) throws SQLException {
+    //used by the streaming path, whose single query still joins customers
+    private Order mapResultSetToOrder(ResultSet rs, Map<String, Customer> customers) throws SQLException {
         String id = rs.getString("id");
         String customerId = rs.getString("customer_id");
         OrderStatus status = OrderStatus.valueOf(rs.getString("status"));
+        Timestamp orderDate = rs.getTimestamp("order_date");
         
-        Customer customer = customerDAO.findById(customerId);
-        Order order = new Order(id, customer);
+        Customer customer = customers.get(customerId);
+        if (customer == null && rs.getString("customer_name") != null) {
+            customer = new Customer(customerId, rs.getString("customer_name"), rs.getString("customer_email"));
+            customers.put(customerId, customer);
+        }
+        
+        Order order = new Order(id, customer, orderDate.toLocalDateTime());
         order.setStatus(status);
         
         return order;
     }
     
-    private void loadOrderItems(Order order) throws SQLException {
-        String sql = "SELECT * FROM order_items WHERE order_id = ?";
+    private Product mapResultSetToProduct(ResultSet rs, Map<String, Product> products) throws SQLException {
+        String productId = rs.getString("product_id");
+        Product product = products.get(productId);
+        if (product == null) {
+            product = new Product.Builder()
+                    .id(productId)
+                    .name(rs.getString("product_name"))
+                    .price(rs.getDouble("product_price"))
+                    .description(rs.getString("product_description"))
+                    .stock(rs.getInt("product_stock"))
+                    .build();
+            products.put(productId, product);
+        }
+        return product;
+    }
+    
+    private void closeStream(ResultSet rs, PreparedStatement pstmt, Connection conn) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (pstmt != null) {
+                pstmt.close();
+            }
+        } catch (SQLException e) {
+            logger.exception("Error closing order stream", e);
+            errors.increment();
+        }
+        close(conn);
+    }
+    
+    /**
+     * turns the rows of STREAM_SELECT into orders. rows arrive grouped by
+     * order id, so an order is complete as soon as a row with a different id
+     * shows up; that row is kept as the start of the next order. only the
+     * current order is ever held in memory.
+     */
+    private class OrderSpliterator extends Spliterators.AbstractSpliterator<Order> {
+        private final ResultSet rs;
+        //per-order identity maps, cleared for each order so they never grow
+        private final Map<String, Customer> customers = new HashMap<>();
+        private final Map<String, Product> products = new HashMap<>();
+        private Order pending;
+        private boolean exhausted;
         
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, order.getId());
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
+        OrderSpliterator(ResultSet rs) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super Order> action) {
+            try {
+                if (pending == null) {
+                    if (exhausted || !rs.next()) {
+                        exhausted = true;
+                        return false;
+                    }
+                    rowsRead.increment();
+                    pending = startOrder();
+                }
+                
+                Order current = pending;
+                pending = null;
                 while (rs.next()) {
-                    String productId = rs.getString("product_id");
-                    int quantity = rs.getInt("quantity");
-                    
-                    Product product = productDAO.findById(productId);
-                    if (product != null) {
-                        order.addItem(product, quantity);
+                    rowsRead.increment();
+                    if (!current.getId().equals(rs.getString("id"))) {
+                        pending = startOrder();
+                        break;
                     }
+                    addItem(current);
                 }
+                if (pending == null) {
+                    exhausted = true;
+                }
+                
+                action.accept(current);
+                return true;
+                
+            } catch (SQLException e) {
+                logger.exception("Error reading order stream", e);
+                errors.increment();
+                throw new RuntimeException("Error retrieving orders: " + e.getMessage(), e);
+            }
+        }
+        
+        private Order startOrder() throws SQLException {
+            customers.clear();
+            products.clear();
+            Order order = mapResultSetToOrder(rs, customers);
+            addItem(order);
+            return order;
+        }
+        
+        private void addItem(Order order) throws SQLException {
+            if (rs.getString("product_id") != null) {
+                order.addItem(mapResultSetToProduct(rs, products), rs.getInt("quantity"));
             }
         }
     }
+    
+    //order header read by ORDER_SELECT, turned into an order once its customer is resolved
+    private static class OrderRow {
+        final String id;
+        final String customerId;
+        final LocalDateTime orderDate;
+        final OrderStatus status;
+        
+        OrderRow(ResultSet rs) throws SQLException {
+            id = rs.getString("id");
+            customerId = rs.getString("customer_id");
+            orderDate = rs.getTimestamp("order_date").toLocalDateTime();
+            status = OrderStatus.valueOf(rs.getString("status"));
+        }
+    }
+    
+    //order line read by ITEM_SELECT, added to its order once the product is resolved
+    private static class ItemRow {
+        final String orderId;
+        final String productId;
+        final int quantity;
+        
+        ItemRow(ResultSet rs) throws SQLException {
+            orderId = rs.getString("order_id");
+            productId = rs.getString("product_id");
+            quantity = rs.getInt("quantity");
+        }
+    }
+    
+    //binds the parameters of a where clause, applied to every query of a graph load
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
 }
\ No newline at end of file
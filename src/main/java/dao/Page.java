@@ -0,0 +1,29 @@
+package main.java.dao;
+
+import java.util.List;
+
+/**
+ * page is one slice of a keyset-paginated list together with the cursor
+ * for the slice after it (null on the last page).
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final PageCursor nextCursor;
+
+    Page(List<T> items, PageCursor nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,56 @@
+package main.java.dao;
+
+/**
+ * pagecursor marks where a keyset page starts: the sort column plus the sort
+ * value and id of the last row already seen. the id breaks ties when several
+ * rows share the same sort value. a cursor walks either up or down the sort
+ * column, and the cursors for later pages keep its direction.
+ */
+public final class PageCursor {
+    private final String sortColumn;
+    private final Object lastValue;
+    private final String lastId;
+    private final boolean descending;
+
+    PageCursor(String sortColumn, Object lastValue, String lastId, boolean descending) {
+        this.sortColumn = sortColumn;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+        this.descending = descending;
+    }
+
+    //cursor for the first page, ordered by the given column
+    public static PageCursor first(String sortColumn) {
+        return new PageCursor(sortColumn, null, null, false);
+    }
+
+    //cursor for the first page, largest values of the given column first
+    public static PageCursor firstDescending(String sortColumn) {
+        return new PageCursor(sortColumn, null, null, true);
+    }
+
+    public String getSortColumn() {
+        return sortColumn;
+    }
+
+    public Object getLastValue() {
+        return lastValue;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor[" + sortColumn + (descending ? " desc" : "") + " after " + lastValue + "/" + lastId + "]";
+    }
+}
@@ -0,0 +1,124 @@
+package main.java.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * pooledconnection wraps one physical jdbc connection owned by the pool.
+ * each borrow hands out a fresh proxy so a stale reference can't touch the
+ * connection after it has been returned. single-argument prepareStatement
+ * calls are served from the connection's statement cache. when statement
+ * tracing is on, every statement the lease hands out is wrapped by
+ * StatementTracer.
+ */
+class PooledConnection {
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final long createdAt;
+    private volatile long lastUsedAt;
+
+    PooledConnection(ConnectionPool pool, Connection physical, StatementCache statementCache) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCache;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    //waitNanos is how long the borrower waited for this lease
+    Connection lease(long waitNanos) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Lease(waitNanos));
+    }
+
+    Connection getPhysical() {
+        return physical;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    void closePhysical() {
+        statementCache.closeAll();
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            //connection is being discarded anyway
+        }
+    }
+
+    //handler behind each leased proxy, close() returns the connection to the pool
+    private class Lease implements InvocationHandler {
+        private final long waitNanos;
+        private boolean returned;
+        
+        Lease(long waitNanos) {
+            this.waitNanos = waitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            Object result;
+            if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+                result = statementCache.prepare((String) args[0]);
+            } else {
+                try {
+                    result = method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            if (StatementTracer.isActive() && result instanceof Statement) {
+                //prepareStatement and prepareCall carry the sql, createStatement gets it at execute time
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return StatementTracer.trace((Statement) result, method.getReturnType(), sql, waitNanos);
+            }
+            return result;
+        }
+    }
+}
@@ -1,32 +1,73 @@
 package main.java.dao;
 
+import main.java.exception.InsufficientStockException;
+import main.java.exception.ProductNotFoundException;
 import main.java.model.Product;
+import main.java.util.DotEnv;
+import main.java.util.EntityCache;
+import main.java.util.ComponentStats;
 import main.java.util.LoggerUtil;
+import main.java.util.MetricsRegistry;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * productdao handles data access operations for products.
  * implements singleton pattern for centralized data access.
  * 
+ * findById reads through a bounded w-tinylfu cache (see EntityCache).
+ * writes made through this dao keep the cache current; callers always get
+ * their own copy of a cached product so they can't change the cached one.
+ * findByIds resolves many ids with the cache plus chunked IN queries.
+ * findById misses go through a BatchLoader, so concurrent lookups of a hot
+ * product share one query and bursts of different ids share an IN query.
+ *
  * future enhancements:
- * - add caching mechanism
- * - implement batch operations
  * - add search functionality
  */
 public class ProductDAO {
+    private static final int CACHE_SIZE = DotEnv.getInt("PRODUCT_CACHE_SIZE", 10_000);
+    private static final long CACHE_TTL_SECONDS = DotEnv.getLong("PRODUCT_CACHE_TTL_SECONDS", 300);
+    
     private static ProductDAO instance;
     private final DatabaseManager dbManager;
     private final LoggerUtil logger;
+    private final MetricsRegistry metrics;
+    private final MetricsRegistry.Counter rowsRead;
+    private final MetricsRegistry.Counter errors;
+    private final EntityCache<String, Product> cache;
+    private final BatchLoader<String, Product> loader;
+    //whether executeBatch reports a count per stock update, learned from the first multi-row batch
+    private volatile StockCounts stockCounts = StockCounts.UNKNOWN;
+    private final KeysetPager<Product> pager = new KeysetPager<Product>("id", Product::getId)
+            .sortBy("name", "name", Product::getName)
+            .sortBy("price", "price", Product::getPrice);
 
     private ProductDAO() {
         dbManager = DatabaseManager.getInstance();
         logger = LoggerUtil.getInstance();
+        metrics = MetricsRegistry.getInstance();
+        rowsRead = metrics.counter("ProductDAO.rowsRead");
+        errors = metrics.counter("ProductDAO.errors");
+        metrics.registerMBean("DAO", "ProductDAO", new ComponentStats(metrics, "ProductDAO"));
+        cache = new EntityCache<>("ProductCache", CACHE_SIZE, CACHE_TTL_SECONDS, TimeUnit.SECONDS);
+        metrics.gauge("productCache.size", cache::size);
+        metrics.gauge("productCache.hitRatio", cache::getHitRatio);
+        loader = new BatchLoader<>("productLoader", this::loadBatch);
         logger.info("ProductDAO initialized");
     }
 
@@ -38,153 +79,530 @@ public class ProductDAO {
     }
 
     public void save(Product product) {
-        String sql = "INSERT INTO products (id, name, price, description, stock) VALUES (?, ?, ?, ?, ?)";
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, product.getId());
-            pstmt.setString(2, product.getName());
-            pstmt.setDouble(3, product.getPrice());
-            pstmt.setString(4, product.getDescription());
-            pstmt.setInt(5, product.getStock());
+        metrics.timed("ProductDAO.save", () -> {
+            String sql = "INSERT INTO products (id, name, price, description, stock) VALUES (?, ?, ?, ?, ?)";
             
-            pstmt.executeUpdate();
-            logger.info("Product saved: " + product.getId());
-            
-        } catch (SQLException e) {
-            logger.exception("Error saving product", e);
-            throw new RuntimeException("Error saving product: " + e.getMessage(), e);
-        }
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, product.getId());
+                pstmt.setString(2, product.getName());
+                pstmt.setDouble(3, product.getPrice());
+                pstmt.setString(4, product.getDescription());
+                pstmt.setInt(5, product.getStock());
+                
+                pstmt.executeUpdate();
+                cache.put(product.getId(), product.clone());
+                logger.info("Product saved: {}", product.getId());
+                
+            } catch (SQLException e) {
+                logger.exception("Error saving product", e);
+                errors.increment();
+                throw new RuntimeException("Error saving product: " + e.getMessage(), e);
+            }
+        });
     }
 
     public Product findById(String id) {
-        String sql = "SELECT * FROM products WHERE id = ?";
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, id);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToProduct(rs);
-                }
+        return metrics.timed("ProductDAO.findById", () -> {
+            if (id == null) {
+                return null;
             }
-            
+            Product product = cache.getIfPresent(id);
+            if (product == null) {
+                //loadByIds caches the row unless the product was written while it was read
+                product = loader.load(id);
+            }
+            return product != null ? product.clone() : null;
+        });
+    }
+    
+    //cache misses of findById, coalesced and batched by the loader
+    private Map<String, Product> loadBatch(List<String> ids) {
+        Map<String, Product> found = new HashMap<>();
+        
+        try (Connection conn = dbManager.getConnection()) {
+            loadByIds(conn, ids, found);
         } catch (SQLException e) {
             logger.exception("Error finding product by ID", e);
+            errors.increment();
             throw new RuntimeException("Error finding product: " + e.getMessage(), e);
         }
         
-        return null;
+        return found;
     }
-
-    public List<Product> findAll() {
-        String sql = "SELECT * FROM products";
-        List<Product> products = new ArrayList<>();
+    
+    /**
+     * looks up several products at once. ids found in the cache are served
+     * from it and the rest are read with IN queries of at most
+     * DB_IN_LIST_SIZE ids each. the map follows the order of the given ids,
+     * holds each repeated id once and has no entry for ids that don't exist.
+     */
+    public Map<String, Product> findByIds(Collection<String> ids) {
+        try {
+            return metrics.timed("ProductDAO.findByIds", () -> findByIds(null, ids));
+        } catch (SQLException e) {
+            logger.exception("Error finding products by ID", e);
+            errors.increment();
+            throw new RuntimeException("Error finding products: " + e.getMessage(), e);
+        }
+    }
+    
+    //same as findByIds, misses are read on the caller's connection when one is given
+    Map<String, Product> findByIds(Connection conn, Collection<String> ids) throws SQLException {
+        Set<String> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        Map<String, Product> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
         
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                products.add(mapResultSetToProduct(rs));
+        for (String id : unique) {
+            Product product = cache.getIfPresent(id);
+            if (product != null) {
+                found.put(id, product);
+            } else {
+                misses.add(id);
             }
-            
-        } catch (SQLException e) {
-            logger.exception("Error finding all products", e);
-            throw new RuntimeException("Error retrieving products: " + e.getMessage(), e);
         }
         
+        if (!misses.isEmpty()) {
+            if (conn != null) {
+                loadByIds(conn, misses, found);
+            } else {
+                try (Connection own = dbManager.getConnection()) {
+                    loadByIds(own, misses, found);
+                }
+            }
+        }
+        
+        Map<String, Product> products = new LinkedHashMap<>();
+        for (String id : unique) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.put(id, product.clone());
+            }
+        }
         return products;
     }
     
-    public List<Product> searchProductsByName(String name) {
-        String sql = "SELECT * FROM products WHERE LOWER(name) LIKE ?";
-        List<Product> products = new ArrayList<>();
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    private void loadByIds(Connection conn, List<String> ids, Map<String, Product> found) throws SQLException {
+        long token = cache.beginLoad();
+        try {
+            loadChunks(conn, ids, found, token);
+        } finally {
+            cache.endLoad(token);
+        }
+    }
+    
+    private void loadChunks(Connection conn, List<String> ids, Map<String, Product> found, long token)
+            throws SQLException {
+        for (List<String> chunk : InLists.chunks(ids)) {
+            List<String> keys = InLists.padded(chunk);
+            String sql = "SELECT * FROM products WHERE id IN (" + InLists.placeholders(keys.size()) + ")";
             
-            pstmt.setString(1, "%" + name.toLowerCase() + "%");
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < keys.size(); i++) {
+                    pstmt.setString(i + 1, keys.get(i));
+                }
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Product product = mapResultSetToProduct(rs);
+                        cache.putIfUnchanged(product.getId(), product, token);
+                        found.put(product.getId(), product);
+                    }
+                }
+            }
+        }
+    }
+
+    public List<Product> findAll() {
+        return metrics.timed("ProductDAO.findAll", () -> {
+            String sql = "SELECT * FROM products";
+            List<Product> products = new ArrayList<>();
             
-            try (ResultSet rs = pstmt.executeQuery()) {
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                
                 while (rs.next()) {
                     products.add(mapResultSetToProduct(rs));
                 }
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding all products", e);
+                errors.increment();
+                throw new RuntimeException("Error retrieving products: " + e.getMessage(), e);
             }
             
-        } catch (SQLException e) {
-            logger.exception("Error searching products by name", e);
-            throw new RuntimeException("Error searching products: " + e.getMessage(), e);
-        }
-        
-        return products;
+            return products;
+        });
+    }
+    
+    public List<Product> searchProductsByName(String name) {
+        return searchProductsByName(name, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * searches by name on the database, ordered by name and capped at limit.
+     * names starting with the search text are found through the name index,
+     * names containing words that start with one of the search words through
+     * the fulltext index, so neither side scans the whole table. a null or
+     * blank name matches nothing.
+     */
+    public List<Product> searchProductsByName(String name, int limit) {
+        return metrics.timed("ProductDAO.searchProductsByName", () -> {
+            if (name == null || name.trim().isEmpty()) {
+                return new ArrayList<>();
+            }
+            String fulltextQuery = toFulltextQuery(name);
+            String sql = "SELECT * FROM products WHERE name LIKE ?";
+            if (fulltextQuery != null) {
+                sql += " UNION SELECT * FROM products WHERE MATCH(name) AGAINST (? IN BOOLEAN MODE)";
+            }
+            sql += " ORDER BY name, id LIMIT ?";
+            List<Product> products = new ArrayList<>();
+            
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                int index = 1;
+                pstmt.setString(index++, escapeLike(name.trim()) + "%");
+                if (fulltextQuery != null) {
+                    pstmt.setString(index++, fulltextQuery);
+                }
+                pstmt.setInt(index, limit);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        products.add(mapResultSetToProduct(rs));
+                    }
+                }
+                
+            } catch (SQLException e) {
+                logger.exception("Error searching products by name", e);
+                errors.increment();
+                throw new RuntimeException("Error searching products: " + e.getMessage(), e);
+            }
+            
+            return products;
+        });
     }
     
     public List<Product> searchProductsByPriceRange(double minPrice, double maxPrice) {
-        String sql = "SELECT * FROM products WHERE price BETWEEN ? AND ?";
+        return searchProductsByPriceRange(minPrice, maxPrice, Integer.MAX_VALUE);
+    }
+    
+    public List<Product> searchProductsByPriceRange(double minPrice, double maxPrice, int limit) {
+        return metrics.timed("ProductDAO.searchProductsByPriceRange", () -> {
+            String sql = "SELECT * FROM products WHERE price BETWEEN ? AND ? ORDER BY price, id LIMIT ?";
+            List<Product> products = new ArrayList<>();
+            
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setDouble(1, minPrice);
+                pstmt.setDouble(2, maxPrice);
+                pstmt.setInt(3, limit);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        products.add(mapResultSetToProduct(rs));
+                    }
+                }
+                
+            } catch (SQLException e) {
+                logger.exception("Error searching products by price range", e);
+                errors.increment();
+                throw new RuntimeException("Error searching products: " + e.getMessage(), e);
+            }
+            
+            return products;
+        });
+    }
+    
+    //keyset pages, sorted by "id", "name" or "price"
+    
+    public Page<Product> findPage(PageCursor cursor, int pageSize) {
+        return metrics.timed("ProductDAO.findPage", () -> {
+            KeysetPager.checkPageSize(pageSize);
+            List<Object> params = new ArrayList<>();
+            String keyset = pager.predicate(cursor);
+            pager.addPredicateParams(cursor, params);
+            pager.addLimitParam(pageSize, params);
+            
+            String sql = "SELECT * FROM products" + (keyset.isEmpty() ? "" : " WHERE " + keyset)
+                    + pager.orderByAndLimit(cursor);
+            
+            try {
+                return pager.toPage(queryProducts(sql, params), cursor, pageSize);
+                
+            } catch (SQLException e) {
+                logger.exception("Error finding product page", e);
+                errors.increment();
+                throw new RuntimeException("Error retrieving products: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    public Page<Product> searchProductsByNamePage(String name, PageCursor cursor, int pageSize) {
+        return metrics.timed("ProductDAO.searchProductsByNamePage", () -> {
+            KeysetPager.checkPageSize(pageSize);
+            if (name == null || name.trim().isEmpty()) {
+                return pager.toPage(new ArrayList<>(), cursor, pageSize);
+            }
+            String fulltextQuery = toFulltextQuery(name);
+            String keyset = pager.predicate(cursor);
+            String keysetAnd = keyset.isEmpty() ? "" : " AND " + keyset;
+            List<Object> params = new ArrayList<>();
+            
+            //the keyset condition goes into both branches so each stays an index range scan
+            String sql = "SELECT * FROM products WHERE name LIKE ?" + keysetAnd;
+            params.add(escapeLike(name.trim()) + "%");
+            pager.addPredicateParams(cursor, params);
+            if (fulltextQuery != null) {
+                sql += " UNION SELECT * FROM products WHERE MATCH(name) AGAINST (? IN BOOLEAN MODE)" + keysetAnd;
+                params.add(fulltextQuery);
+                pager.addPredicateParams(cursor, params);
+            }
+            sql += pager.orderByAndLimit(cursor);
+            pager.addLimitParam(pageSize, params);
+            
+            try {
+                return pager.toPage(queryProducts(sql, params), cursor, pageSize);
+                
+            } catch (SQLException e) {
+                logger.exception("Error searching product page by name", e);
+                errors.increment();
+                throw new RuntimeException("Error searching products: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    private List<Product> queryProducts(String sql, List<Object> params) throws SQLException {
         List<Product> products = new ArrayList<>();
         
         try (Connection conn = dbManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setDouble(1, minPrice);
-            pstmt.setDouble(2, maxPrice);
+            KeysetPager.bind(pstmt, params);
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     products.add(mapResultSetToProduct(rs));
                 }
             }
-            
-        } catch (SQLException e) {
-            logger.exception("Error searching products by price range", e);
-            throw new RuntimeException("Error searching products: " + e.getMessage(), e);
         }
         
         return products;
     }
+    
+    //turns "wireless mou" into "+wireless* +mou*", null when nothing searchable is left
+    private static String toFulltextQuery(String text) {
+        StringBuilder query = new StringBuilder();
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            //innodb ignores words below innodb_ft_min_token_size (3 by default)
+            if (word.length() >= 3) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append('+').append(word).append('*');
+            }
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+    
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
     public void update(Product product) {
-        String sql = "UPDATE products SET name = ?, price = ?, description = ?, stock = ? WHERE id = ?";
-        
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, product.getName());
-            pstmt.setDouble(2, product.getPrice());
-            pstmt.setString(3, product.getDescription());
-            pstmt.setInt(4, product.getStock());
-            pstmt.setString(5, product.getId());
-            
-            pstmt.executeUpdate();
-            logger.info("Product updated: " + product.getId());
+        metrics.timed("ProductDAO.update", () -> {
+            String sql = "UPDATE products SET name = ?, price = ?, description = ?, stock = ? WHERE id = ?";
             
-        } catch (SQLException e) {
-            logger.exception("Error updating product", e);
-            throw new RuntimeException("Error updating product: " + e.getMessage(), e);
-        }
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, product.getName());
+                pstmt.setDouble(2, product.getPrice());
+                pstmt.setString(3, product.getDescription());
+                pstmt.setInt(4, product.getStock());
+                pstmt.setString(5, product.getId());
+                
+                pstmt.executeUpdate();
+                cache.put(product.getId(), product.clone());
+                logger.info("Product updated: {}", product.getId());
+                
+            } catch (SQLException e) {
+                logger.exception("Error updating product", e);
+                errors.increment();
+                throw new RuntimeException("Error updating product: " + e.getMessage(), e);
+            }
+        });
     }
 
-    public void delete(String id) {
-        String sql = "DELETE FROM products WHERE id = ?";
+    /**
+     * takes stock for several products on the caller's connection, as part of
+     * the caller's transaction. each row is updated with a conditional
+     * "stock = stock - ? ... AND stock >= ?" so the check and the decrement
+     * are one atomic step on the database. rows are touched in product id
+     * order (the map should be sorted) so concurrent orders lock products in
+     * the same order and can't deadlock each other.
+     *
+     * the updates go out as one batch when the driver reports a count per
+     * statement. a rewritten batch (rewriteBatchedStatements) may only answer
+     * Statement.SUCCESS_NO_INFO, which says nothing about the condition. the
+     * first multi-row batch therefore runs under a savepoint: if its counts
+     * are missing it is rolled back and redone row by row, and later calls
+     * update row by row straight away.
+     *
+     * only an update count of exactly 1 counts as stock taken. 0 means the
+     * product is missing or short, which is looked up and thrown. any other
+     * count fails with an SQLException and the caller's transaction is rolled
+     * back instead of risking an oversell.
+     *
+     * @return number of statements sent to the database when every row was
+     *         updated; a rejected row throws after its extra lookup
+     */
+    public int decrementStock(Connection conn, Map<String, Integer> quantities)
+            throws SQLException, ProductNotFoundException, InsufficientStockException {
+        String sql = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+        List<String> productIds = new ArrayList<>(quantities.keySet());
+        int[] counts;
+        int statements;
         
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        if (productIds.size() == 1 || stockCounts == StockCounts.MISSING) {
+            counts = updateStockRows(conn, sql, productIds, quantities);
+            statements = productIds.size();
+        } else {
+            Savepoint savepoint = stockCounts == StockCounts.UNKNOWN ? conn.setSavepoint() : null;
+            counts = updateStockBatch(conn, sql, productIds, quantities);
+            statements = savepoint != null ? 2 : 1;
             
-            pstmt.setString(1, id);
-            pstmt.executeUpdate();
-            logger.info("Product deleted: " + id);
+            if (!hasMissingCount(counts)) {
+                stockCounts = StockCounts.EXACT;
+            } else if (savepoint != null) {
+                //nothing can be told from this batch, undo it and take the stock row by row
+                conn.rollback(savepoint);
+                stockCounts = StockCounts.MISSING;
+                logger.warning("Batched stock updates return no update counts, taking stock row by row");
+                counts = updateStockRows(conn, sql, productIds, quantities);
+                statements += 1 + productIds.size();
+            } else {
+                //counts were exact before, the driver setup changed under a running application
+                stockCounts = StockCounts.MISSING;
+            }
+        }
+        
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                continue;
+            }
+            if (counts[i] != 0) {
+                logger.warning("Unexpected update count {} taking stock for product {}", counts[i], productIds.get(i));
+                throw new SQLException("Stock update for product " + productIds.get(i)
+                        + " returned update count " + counts[i] + ", can't tell whether stock was taken");
+            }
+            //nothing updated, find out whether the product is missing or short
+            statements++;
+            rejectStockUpdate(conn, productIds.get(i));
+        }
+        
+        logger.debug("Stock decremented for {} products", productIds.size());
+        return statements;
+    }
+    
+    private int[] updateStockBatch(Connection conn, String sql, List<String> productIds,
+            Map<String, Integer> quantities) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (String productId : productIds) {
+                int quantity = quantities.get(productId);
+                pstmt.setInt(1, quantity);
+                pstmt.setString(2, productId);
+                pstmt.setInt(3, quantity);
+                pstmt.addBatch();
+            }
+            return pstmt.executeBatch();
+        }
+    }
+    
+    private int[] updateStockRows(Connection conn, String sql, List<String> productIds,
+            Map<String, Integer> quantities) throws SQLException {
+        int[] counts = new int[productIds.size()];
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < productIds.size(); i++) {
+                int quantity = quantities.get(productIds.get(i));
+                pstmt.setInt(1, quantity);
+                pstmt.setString(2, productIds.get(i));
+                pstmt.setInt(3, quantity);
+                counts[i] = pstmt.executeUpdate();
+            }
+        }
+        return counts;
+    }
+    
+    private static boolean hasMissingCount(int[] counts) {
+        for (int count : counts) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void rejectStockUpdate(Connection conn, String productId)
+            throws SQLException, ProductNotFoundException, InsufficientStockException {
+        String sql = "SELECT name, stock FROM products WHERE id = ?";
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, productId);
             
-        } catch (SQLException e) {
-            logger.exception("Error deleting product", e);
-            throw new RuntimeException("Error deleting product: " + e.getMessage(), e);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    logger.warning("Product not found: {}", productId);
+                    throw new ProductNotFoundException("Product not found: " + productId);
+                }
+                
+                logger.warning("Insufficient stock for product: {}", productId);
+                throw new InsufficientStockException(
+                        "Insufficient stock for product " + rs.getString("name") +
+                        ". Available: " + rs.getInt("stock"));
+            }
+        }
+    }
+    
+    //drops cached copies after their rows were changed outside this dao's own writes
+    public void invalidateCache(Collection<String> ids) {
+        for (String id : ids) {
+            cache.invalidate(id);
         }
     }
     
+    public EntityCache<String, Product> getCache() {
+        return cache;
+    }
+    
+    public void delete(String id) {
+        metrics.timed("ProductDAO.delete", () -> {
+            String sql = "DELETE FROM products WHERE id = ?";
+            
+            try (Connection conn = dbManager.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
+                cache.invalidate(id);
+                logger.info("Product deleted: {}", id);
+                
+            } catch (SQLException e) {
+                logger.exception("Error deleting product", e);
+                errors.increment();
+                throw new RuntimeException("Error deleting product: " + e.getMessage(), e);
+            }
+        });
+    }
+    
     private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
+        rowsRead.increment();
         return new Product.Builder()
                 .id(rs.getString("id"))
                 .name(rs.getString("name"))
@@ -193,4 +611,6 @@ public class ProductDAO {
                 .stock(rs.getInt("stock"))
                 .build();
     }
-}
\ No newline at end of file
+    
+    private enum StockCounts { UNKNOWN, EXACT, MISSING }
+}
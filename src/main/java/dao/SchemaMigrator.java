@@ -0,0 +1,129 @@
+package main.java.dao;
+
+import main.java.util.LoggerUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * schemamigrator applies ordered migrations once and records them in the
+ * schema_version table. when the recorded version is already the latest,
+ * startup only runs a single select and no ddl at all.
+ */
+class SchemaMigrator {
+    //mysql error codes for objects that already exist
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+    private static final int ER_NO_SUCH_TABLE = 1146;
+
+    private final List<Migration> migrations;
+    private final LoggerUtil logger;
+
+    SchemaMigrator(List<Migration> migrations) {
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort((a, b) -> Integer.compare(a.getVersion(), b.getVersion()));
+        this.logger = LoggerUtil.getInstance();
+    }
+
+    void migrate(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = readAppliedVersions(conn);
+        int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.getVersion());
+            if (checksum != null && checksum != migration.getChecksum()) {
+                throw new SQLException("Migration V" + migration.getVersion() + " ("
+                        + migration.getDescription() + ") was changed after it was applied");
+            }
+        }
+
+        if (applied.containsKey(latest)) {
+            logger.info("Database schema is current (version " + latest + ")");
+            return;
+        }
+
+        for (Migration migration : migrations) {
+            if (!applied.containsKey(migration.getVersion())) {
+                apply(conn, migration);
+            }
+        }
+        logger.info("Database schema migrated to version " + latest);
+    }
+
+    private Map<Integer, Long> readAppliedVersions(Connection conn) throws SQLException {
+        String sql = "SELECT version, checksum FROM schema_version ORDER BY version";
+        Map<Integer, Long> applied = new LinkedHashMap<>();
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_NO_SUCH_TABLE && !"42S02".equals(e.getSQLState())) {
+                throw e;
+            }
+            createVersionTable(conn);
+        }
+
+        return applied;
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version INT PRIMARY KEY, " +
+                "description VARCHAR(200) NOT NULL, " +
+                "checksum BIGINT NOT NULL, " +
+                "applied_at TIMESTAMP NOT NULL" +
+                ")";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+        logger.info("Created schema_version table");
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        logger.info("Applying migration V" + migration.getVersion() + ": " + migration.getDescription());
+
+        String product = conn.getMetaData().getDatabaseProductName();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.getStatements()) {
+                //embedded stand-ins used by tests have no fulltext indexes, the checksum still covers the statement
+                if (!"MySQL".equalsIgnoreCase(product) && sql.startsWith("CREATE FULLTEXT")) {
+                    logger.info("Skipping MySQL-only statement on " + product + ": " + sql);
+                    continue;
+                }
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    //databases created before migrations existed may already have the object
+                    if (e.getErrorCode() != ER_DUP_KEYNAME && e.getErrorCode() != ER_DUP_FIELDNAME) {
+                        throw e;
+                    }
+                    logger.info("Skipping statement, object already exists: " + e.getMessage());
+                }
+            }
+        }
+
+        String sql = "INSERT INTO schema_version (version, description, checksum, applied_at) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setLong(3, migration.getChecksum());
+            pstmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package main.java.dao;
+
+import main.java.util.DotEnv;
+import main.java.util.LoggerUtil;
+import main.java.util.MetricsRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * slowquerylog watches every statement run through the pool once
+ * DB_SLOW_QUERY_MS is set. executions are aggregated by statement shape
+ * (see SqlShape), and any execution over the
+ * threshold is logged with its duration, row count and bound parameters.
+ * parameter values can be personal data (emails, names), so only their
+ * types are logged unless DB_SLOW_QUERY_LOG_PARAMETERS=true. queries are
+ * timed until execute returns; reading the rows afterwards doesn't count.
+ *
+ * the first time a select shape turns up slow its plan is captured with
+ * EXPLAIN on a background thread, using the same parameters, so the
+ * statement that was slow is never held up by the diagnosis. a plan that
+ * doesn't fit in the explain queue is tried again on the next slow run.
+ */
+public final class SlowQueryLog {
+    private static final long THRESHOLD_MS = DotEnv.getLong("DB_SLOW_QUERY_MS", 0);
+    private static final boolean LOG_PARAMETERS = DotEnv.getBoolean("DB_SLOW_QUERY_LOG_PARAMETERS", false);
+    //cap on distinct shapes so unparameterized sql can't grow the map forever
+    private static final int MAX_SHAPES = 1000;
+    private static final int EXPLAIN_QUEUE = 16;
+    
+    
+    private static SlowQueryLog instance;
+    
+    private final LoggerUtil logger = LoggerUtil.getInstance();
+    private final Map<String, StatementStats> stats = new ConcurrentHashMap<>();
+    //raw sql to its shape's stats, saves re-normalizing prepared statements
+    private final Map<String, StatementStats> bySql = new ConcurrentHashMap<>();
+    private final MetricsRegistry.Counter slowStatements;
+    private final ThreadPoolExecutor explainer;
+    
+    private SlowQueryLog() {
+        slowStatements = MetricsRegistry.getInstance().counter("db.slowStatements");
+        
+        //one daemon thread, record releases the claim of a plan that doesn't fit in the queue
+        explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE),
+                task -> {
+                    Thread thread = new Thread(task, "orderly-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info("Slow query log enabled, threshold {} ms", THRESHOLD_MS);
+    }
+    
+    public static synchronized SlowQueryLog getInstance() {
+        if (instance == null) {
+            instance = new SlowQueryLog();
+        }
+        return instance;
+    }
+    
+    public static boolean isEnabled() {
+        return THRESHOLD_MS > 0;
+    }
+    
+    public static long getThresholdMillis() {
+        return THRESHOLD_MS;
+    }
+    
+    //called by StatementTracer when an execution finishes
+    void record(String sql, String method, long durationNanos, long rows, List<Object> parameters) {
+        StatementStats shapeStats = statsFor(sql);
+        
+        boolean slow = TimeUnit.NANOSECONDS.toMillis(durationNanos) >= THRESHOLD_MS;
+        if (shapeStats != null) {
+            shapeStats.record(durationNanos, slow);
+        }
+        if (!slow) {
+            return;
+        }
+        
+        slowStatements.increment();
+        List<Object> boundParameters = parameters == null ? List.of() : new ArrayList<>(parameters);
+        logger.warning("Slow statement [{}] {} took {} ms, rows={}, parameters={}: {}",
+                StatementTracer.sqlId(sql), method, TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                rows, LOG_PARAMETERS ? boundParameters : masked(boundParameters), sql);
+        
+        if (shapeStats != null && isSelect(sql) && shapeStats.claimExplain()) {
+            try {
+                explainer.execute(() -> explain(shapeStats, sql, boundParameters));
+            } catch (RejectedExecutionException e) {
+                //queue full, a later slow run of the shape gets the plan
+                shapeStats.releaseExplain();
+            }
+        }
+    }
+    
+    //parameter types in place of their values, e.g. [String, Integer, null]
+    private static List<String> masked(List<Object> parameters) {
+        List<String> types = new ArrayList<>(parameters.size());
+        for (Object parameter : parameters) {
+            types.add(parameter == null ? "null" : parameter.getClass().getSimpleName());
+        }
+        return types;
+    }
+    
+    //null once MAX_SHAPES distinct shapes are tracked
+    private StatementStats statsFor(String sql) {
+        StatementStats shapeStats = bySql.get(sql);
+        if (shapeStats != null) {
+            return shapeStats;
+        }
+        if (stats.size() >= MAX_SHAPES || bySql.size() >= MAX_SHAPES) {
+            return stats.get(SqlShape.of(sql));
+        }
+        shapeStats = stats.computeIfAbsent(SqlShape.of(sql), StatementStats::new);
+        bySql.put(sql, shapeStats);
+        return shapeStats;
+    }
+    
+    //runs on the explain thread
+    private void explain(StatementStats shapeStats, String sql, List<Object> parameters) {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    if (plan.length() > 0) {
+                        plan.append('\n');
+                    }
+                    for (int col = 1; col <= meta.getColumnCount(); col++) {
+                        if (col > 1) {
+                            plan.append(", ");
+                        }
+                        plan.append(meta.getColumnLabel(col)).append('=').append(rs.getObject(col));
+                    }
+                }
+            }
+            
+            shapeStats.plan = plan.toString();
+            logger.warning("EXPLAIN for slow statement [{}]:\n{}", StatementTracer.sqlId(sql), shapeStats.plan);
+        } catch (SQLException | RuntimeException e) {
+            shapeStats.plan = "EXPLAIN failed: " + e.getMessage();
+            logger.warning("Could not EXPLAIN slow statement [{}]: {}", StatementTracer.sqlId(sql), e.getMessage());
+        }
+    }
+    
+    //shapes ordered by total time spent in them, the biggest win first
+    public List<StatementStats> getTopStatements(int limit) {
+        return stats.values().stream()
+                .sorted(Comparator.comparingLong(StatementStats::getTotalNanos).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
+    public void reset() {
+        bySql.clear();
+        stats.clear();
+    }
+    
+    private static boolean isSelect(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "SELECT", 0, 6);
+    }
+    
+    //aggregated executions of one statement shape
+    public static class StatementStats {
+        private final String shape;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong explainClaimed = new AtomicLong();
+        private volatile String plan;
+        
+        StatementStats(String shape) {
+            this.shape = shape;
+        }
+        
+        void record(long nanos, boolean slow) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (slow) {
+                slowCount.increment();
+            }
+            
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+        
+        //true for exactly one caller, the plan is captured once per shape
+        boolean claimExplain() {
+            return explainClaimed.compareAndSet(0, 1);
+        }
+        
+        void releaseExplain() {
+            explainClaimed.set(0);
+        }
+        
+        public String getShape() {
+            return shape;
+        }
+        
+        public long getCount() {
+            return count.sum();
+        }
+        
+        public long getSlowCount() {
+            return slowCount.sum();
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+        
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (double) n / 1_000_000.0;
+        }
+        
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+        
+        //null until a slow execution has been explained
+        public String getPlan() {
+            return plan;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package main.java.dao;
+
+import java.util.regex.Pattern;
+
+/**
+ * sqlshape reduces a sql text to its shape: literals become ?, whitespace
+ * is collapsed and IN lists of any length read (?, ...). executions of the
+ * same statement with different values or list sizes share one shape, which
+ * is what the slow query log and query counters group by.
+ */
+public final class SqlShape {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    
+    private SqlShape() {
+    }
+    
+    public static String of(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ");
+        shape = IN_LIST.matcher(shape).replaceAll("(?, ...)");
+        return shape.trim();
+    }
+}
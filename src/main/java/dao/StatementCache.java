@@ -0,0 +1,192 @@
+package main.java.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * statementcache keeps prepared statements for one pooled connection, keyed
+ * by sql text and bounded with lru eviction. daos keep calling
+ * prepareStatement/close as usual; close() on a cached statement only resets
+ * it so the next caller with the same sql skips the re-prepare. the reset
+ * clears parameters and batch, and puts back the fetch size, max rows and
+ * query timeout if the caller changed them.
+ *
+ * a pooled connection is only used by one thread at a time, so the cache
+ * itself needs no locking.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, Entry> entries;
+
+    StatementCache(Connection physical, int capacity, LongAdder hits, LongAdder misses) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        if (capacity <= 0) {
+            misses.increment();
+            return physical.prepareStatement(sql);
+        }
+
+        Entry entry = entries.get(sql);
+        if (entry != null && !entry.inUse && entry.statement.isClosed()) {
+            entries.remove(sql);
+            entry = null;
+        }
+        if (entry != null && !entry.inUse) {
+            hits.increment();
+            entry.inUse = true;
+            return entry.proxy;
+        }
+
+        misses.increment();
+        if (entry != null) {
+            //same sql is already open on this connection (nested use), hand out a plain one
+            return physical.prepareStatement(sql);
+        }
+
+        entry = new Entry(physical.prepareStatement(sql));
+        entry.inUse = true;
+        entries.put(sql, entry);
+        evictOverflow();
+        return entry.proxy;
+    }
+
+    //called when the connection goes back to the pool
+    void reset() {
+        for (Entry entry : entries.values()) {
+            if (entry.inUse) {
+                entry.recycle();
+            }
+        }
+    }
+
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.closePhysical();
+        }
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            if (eldest.inUse) {
+                eldest.evicted = true; //closed once the current user is done with it
+            } else {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    private static class Entry implements InvocationHandler {
+        //setters whose effect outlives the borrower that called them
+        private static final Set<String> SETTINGS =
+                Set.of("setFetchSize", "setMaxRows", "setLargeMaxRows", "setQueryTimeout");
+        
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse;
+        private boolean evicted;
+        //values from before the current borrower changed them, restored on recycle
+        private boolean tuned;
+        private int fetchSize;
+        private int maxRows;
+        private int queryTimeout;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        recycle();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + statement + "]";
+                default:
+                    break;
+            }
+
+            if (!inUse) {
+                throw new SQLException("Statement has already been closed");
+            }
+            if (!tuned && SETTINGS.contains(method.getName())) {
+                fetchSize = statement.getFetchSize();
+                maxRows = statement.getMaxRows();
+                queryTimeout = statement.getQueryTimeout();
+                tuned = true;
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        void recycle() {
+            inUse = false;
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                if (tuned) {
+                    statement.setFetchSize(fetchSize);
+                    statement.setMaxRows(maxRows);
+                    statement.setQueryTimeout(queryTimeout);
+                    tuned = false;
+                }
+            } catch (SQLException e) {
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                //statement is being discarded anyway
+            }
+        }
+    }
+}
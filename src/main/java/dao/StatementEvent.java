@@ -0,0 +1,39 @@
+package main.java.dao;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * flight recorder event for one jdbc statement execution. for queries the
+ * duration runs until the result set is closed, so it includes fetching the
+ * rows. the stack trace shows which dao method ran the statement.
+ */
+@Name("orderly.Statement")
+@Label("SQL Statement")
+@Category({ "Orderly", "Database" })
+@Description("A JDBC statement execution, including reading its result set")
+class StatementEvent extends Event {
+    @Label("SQL Id")
+    @Description("Stable hash of the SQL text, groups executions of the same statement")
+    String sqlId;
+    
+    @Label("SQL")
+    String sql;
+    
+    @Label("Method")
+    @Description("JDBC method that ran the statement, e.g. executeQuery or executeBatch")
+    String method;
+    
+    @Label("Rows")
+    @Description("Rows read for queries, rows changed for updates, -1 when unknown")
+    long rows;
+    
+    @Label("Connection Wait")
+    @Description("Time the borrower waited for its pooled connection")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionWait;
+}
@@ -0,0 +1,12 @@
+package main.java.dao;
+
+/**
+ * callback for every sql statement executed on a pooled connection, see
+ * DatabaseManager.addStatementListener. it runs on the executing thread
+ * right after the statement (or, for queries, its result set) completes,
+ * so implementations should be quick.
+ */
+public interface StatementListener {
+    //rows is -1 when the driver doesn't report a count
+    void statementExecuted(String sql, String method, long durationNanos, long rows);
+}
@@ -0,0 +1,290 @@
+package main.java.dao;
+
+import main.java.util.DotEnv;
+import main.java.util.LoggerUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.EventType;
+
+/**
+ * statementtracer observes every statement handed out by a pooled
+ * connection. when tracing is on, the connection wraps each statement in a
+ * proxy that times its execute* calls (and, for queries, reading the result
+ * set) and reports them as flight recorder events, to the slow query log
+ * and to registered StatementListeners. the slow query log gets the time
+ * until execute* returned, so a long read of a streamed result isn't slow.
+ *
+ * the decision is made when a statement is leased. with no DB_SLOW_QUERY_MS,
+ * no listeners and no flight recording capturing orderly.Statement events
+ * (JFR_EVENTS=true only makes the event available) the raw statement is
+ * returned and costs nothing extra. daos lease a statement per call, so a
+ * recording that starts misses only the calls already in flight.
+ */
+final class StatementTracer {
+    static final boolean JFR_EVENTS = DotEnv.getBoolean("JFR_EVENTS", false);
+    private static final EventType STATEMENT_EVENT = JFR_EVENTS ? EventType.getEventType(StatementEvent.class) : null;
+    private static final List<StatementListener> listeners = new CopyOnWriteArrayList<>();
+    private static final LoggerUtil logger = LoggerUtil.getInstance();
+    
+    private StatementTracer() {
+    }
+    
+    //true when a statement leased now has someone to report to
+    static boolean isActive() {
+        return (STATEMENT_EVENT != null && STATEMENT_EVENT.isEnabled())
+                || SlowQueryLog.isEnabled() || !listeners.isEmpty();
+    }
+    
+    //statements leased after this call are reported to the listener
+    static void addListener(StatementListener listener) {
+        listeners.add(listener);
+    }
+    
+    static void removeListener(StatementListener listener) {
+        listeners.remove(listener);
+    }
+    
+    //wraps a statement returned by createStatement, prepareStatement or prepareCall
+    static Object trace(Statement statement, Class<?> type, String sql, long connectionWaitNanos) {
+        return Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                new TracedStatement(statement, sql, connectionWaitNanos));
+    }
+    
+    //short stable id for a sql text, the same statement always gets the same id
+    static String sqlId(String sql) {
+        return String.format("%08x", sql.hashCode());
+    }
+    
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private static long rowsOf(Object result, Statement statement) throws SQLException {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            long rows = 0;
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+            return rows;
+        }
+        if (result instanceof long[]) {
+            long rows = 0;
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+            return rows;
+        }
+        if (Boolean.FALSE.equals(result)) {
+            return statement.getUpdateCount();
+        }
+        return -1;
+    }
+    
+    //one execution from execute* until its result (set) is done
+    private static class Execution {
+        private final String sql;
+        private final String method;
+        private final long connectionWaitNanos;
+        private final List<Object> parameters;
+        private final StatementEvent event;
+        private final long startNanos;
+        //until execute* returned, a query's result set is read after that
+        private long executeNanos = -1;
+        private boolean finished;
+        
+        Execution(String sql, String method, long connectionWaitNanos, List<Object> parameters) {
+            this.sql = sql;
+            this.method = method;
+            this.connectionWaitNanos = connectionWaitNanos;
+            this.parameters = parameters;
+            this.startNanos = System.nanoTime();
+            if (STATEMENT_EVENT != null && STATEMENT_EVENT.isEnabled()) {
+                event = new StatementEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+        
+        void executed() {
+            executeNanos = System.nanoTime() - startNanos;
+        }
+        
+        void finish(long rows) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long durationNanos = System.nanoTime() - startNanos;
+            
+            //judged on execution alone, reading a streamed export would make every export slow
+            if (SlowQueryLog.isEnabled()) {
+                SlowQueryLog.getInstance().record(sql, method, executeNanos >= 0 ? executeNanos : durationNanos,
+                        rows, parameters);
+            }
+            for (StatementListener listener : listeners) {
+                try {
+                    listener.statementExecuted(sql, method, durationNanos, rows);
+                } catch (RuntimeException e) {
+                    //a broken listener must not fail the statement
+                    logger.warning("Statement listener failed: {}", e.getMessage());
+                }
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.sqlId = sqlId(sql);
+                    event.sql = sql;
+                    event.method = method;
+                    event.rows = rows;
+                    event.connectionWait = connectionWaitNanos;
+                    event.commit();
+                }
+            }
+        }
+    }
+    
+    private static class TracedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final long connectionWaitNanos;
+        //bound parameters by index, only kept for the slow query log
+        private final List<Object> parameters;
+        //query whose result set is still being read
+        private Execution pending;
+        
+        TracedStatement(Statement statement, String sql, long connectionWaitNanos) {
+            this.statement = statement;
+            this.sql = sql;
+            this.connectionWaitNanos = connectionWaitNanos;
+            this.parameters = SlowQueryLog.isEnabled() && statement instanceof PreparedStatement ? new ArrayList<>() : null;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (parameters != null) {
+                bind(name, args);
+            }
+            switch (name) {
+                case "close":
+                    finishPending(-1);
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TracedStatement[" + statement + "]";
+                default:
+                    break;
+            }
+            return invokeTarget(statement, method, args);
+        }
+        
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishPending(-1);
+            //plain statements carry their sql in the execute call
+            String text = sql;
+            if (text == null) {
+                text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "?";
+            }
+            
+            Execution execution = new Execution(text, method.getName(), connectionWaitNanos, parameters);
+            Object result;
+            try {
+                result = invokeTarget(statement, method, args);
+            } catch (Throwable t) {
+                execution.finish(-1);
+                throw t;
+            }
+            
+            if (result instanceof ResultSet) {
+                execution.executed();
+                pending = execution;
+                return Proxy.newProxyInstance(
+                        ResultSet.class.getClassLoader(),
+                        new Class<?>[] { ResultSet.class },
+                        new CountingResultSet((ResultSet) result, this));
+            }
+            execution.finish(rowsOf(result, statement));
+            return result;
+        }
+        
+        //setXxx(index, value, ...) on a prepared statement
+        private void bind(String name, Object[] args) {
+            if ("clearParameters".equals(name)) {
+                parameters.clear();
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0] - 1;
+                while (parameters.size() <= index) {
+                    parameters.add(null);
+                }
+                parameters.set(index, "setNull".equals(name) ? null : args[1]);
+            }
+        }
+        
+        void finishPending(long rows) {
+            if (pending != null) {
+                pending.finish(rows);
+                pending = null;
+            }
+        }
+    }
+    
+    //counts rows as they are read and ends the query's execution on close
+    private static class CountingResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final TracedStatement owner;
+        private long rows;
+        
+        CountingResultSet(ResultSet resultSet, TracedStatement owner) {
+            this.resultSet = resultSet;
+            this.owner = owner;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object hasRow = invokeTarget(resultSet, method, args);
+                    if (Boolean.TRUE.equals(hasRow)) {
+                        rows++;
+                    }
+                    return hasRow;
+                case "close":
+                    owner.finishPending(rows);
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return invokeTarget(resultSet, method, args);
+        }
+    }
+}
@@ -4,4 +4,8 @@ public class InvalidOrderException extends OrderlyException {
     public InvalidOrderException(String message) {
         super(message);
     }
+    
+    public InvalidOrderException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
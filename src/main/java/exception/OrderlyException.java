@@ -4,4 +4,8 @@ public class OrderlyException extends Exception {
     public OrderlyException(String message) {
         super(message);
     }
+    
+    public OrderlyException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
\ No newline at end of file
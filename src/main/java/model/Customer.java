@@ -9,7 +9,7 @@ package main.java.model;
  * - add order history
  */
 
-public class Customer {
+public class Customer implements Cloneable {
     private final String id;
     private String name;
     private String email;
@@ -19,6 +19,16 @@ public class Customer {
         this.name = name;
         this.email = email;
     }
+    
+    @Override
+    public Customer clone() {
+        try {
+            return (Customer) super.clone();
+        } catch (CloneNotSupportedException e) {
+            //can't happen, the class is Cloneable
+            throw new AssertionError(e);
+        }
+    }
 
     //getters and setters
     public String getId(){
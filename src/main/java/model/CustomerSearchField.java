@@ -0,0 +1,12 @@
+package main.java.model;
+
+/**
+ * customersearchfield selects which customer fields a search matches
+ * against: the name, the email, or either of them.
+ */
+
+public enum CustomerSearchField {
+    NAME,
+    EMAIL,
+    ANY
+}
@@ -21,9 +21,14 @@ public class Order {
     private OrderStatus status;
 
     public Order(String id, Customer customer) {
+        this(id, customer, LocalDateTime.now());
+    }
+
+    //used when loading an existing order with its stored date
+    public Order(String id, Customer customer, LocalDateTime orderDate) {
         this.id = id;
         this.customer = customer;
-        this.orderDate = LocalDateTime.now();
+        this.orderDate = orderDate;
         this.items = new ArrayList<>();
         this.status = OrderStatus.NEW;
     }
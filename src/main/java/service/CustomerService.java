@@ -1,10 +1,18 @@
 package main.java.service;
 
 import main.java.dao.CustomerDAO;
+import main.java.dao.Page;
+import main.java.dao.PageCursor;
 import main.java.model.Customer;
+import main.java.model.CustomerSearchField;
+import main.java.util.ComponentStats;
+import main.java.util.DotEnv;
 import main.java.util.LoggerUtil;
+import main.java.util.MetricsRegistry;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * customerservice handles business logic for customer operations.
@@ -15,70 +23,114 @@ import java.util.List;
  * - add customer segmentation
  */
 public class CustomerService {
+    //maximum rows returned by a search
+    private static final int SEARCH_LIMIT = DotEnv.getInt("CUSTOMER_SEARCH_LIMIT", 200);
+    
     private final CustomerDAO customerDAO;
     private final LoggerUtil logger;
+    private final MetricsRegistry metrics;
     
     public CustomerService() {
         this.customerDAO = CustomerDAO.getInstance();
         this.logger = LoggerUtil.getInstance();
+        this.metrics = MetricsRegistry.getInstance();
+        metrics.registerMBean("Service", "CustomerService", new ComponentStats(metrics, "CustomerService"));
         logger.info("CustomerService initialized");
     }
     
     public void createCustomer(Customer customer) {
-        logger.info("Creating customer: " + customer.getId());
-        
-        //basic validation
-        if (customer.getName() == null || customer.getName().trim().isEmpty()) {
-            logger.warning("Attempted to create customer with no name: " + customer.getId());
-            throw new IllegalArgumentException("Customer name cannot be empty");
-        }
-        
-        if (customer.getEmail() == null || customer.getEmail().trim().isEmpty()) {
-            logger.warning("Attempted to create customer with no email: " + customer.getId());
-            throw new IllegalArgumentException("Customer email cannot be empty");
-        }
-        
-        customerDAO.save(customer);
-        logger.info("Customer created successfully: " + customer.getId());
+        metrics.timed("CustomerService.createCustomer", () -> {
+            logger.info("Creating customer: {}", customer.getId());
+            
+            //basic validation
+            if (customer.getName() == null || customer.getName().trim().isEmpty()) {
+                logger.warning("Attempted to create customer with no name: {}", customer.getId());
+                throw new IllegalArgumentException("Customer name cannot be empty");
+            }
+            
+            if (customer.getEmail() == null || customer.getEmail().trim().isEmpty()) {
+                logger.warning("Attempted to create customer with no email: {}", customer.getId());
+                throw new IllegalArgumentException("Customer email cannot be empty");
+            }
+            
+            customerDAO.save(customer);
+            logger.info("Customer created successfully: {}", customer.getId());
+        });
     }
     
     public Customer getCustomer(String id) {
-        logger.info("Retrieving customer: " + id);
-        Customer customer = customerDAO.findById(id);
-        
-        if (customer == null) {
-            logger.warning("Customer not found: " + id);
-        }
-        
-        return customer;
+        return metrics.timed("CustomerService.getCustomer", () -> {
+            logger.info("Retrieving customer: {}", id);
+            Customer customer = customerDAO.findById(id);
+            
+            if (customer == null) {
+                logger.warning("Customer not found: {}", id);
+            }
+            
+            return customer;
+        });
+    }
+    
+    //missing ids have no entry in the returned map
+    public Map<String, Customer> getCustomers(Collection<String> ids) {
+        return metrics.timed("CustomerService.getCustomers", () -> {
+            logger.info("Retrieving {} customers", ids.size());
+            return customerDAO.findByIds(ids);
+        });
     }
     
     public List<Customer> getAllCustomers() {
-        logger.info("Retrieving all customers");
-        return customerDAO.findAll();
+        return metrics.timed("CustomerService.getAllCustomers", () -> {
+            logger.info("Retrieving all customers");
+            return customerDAO.findAll();
+        });
+    }
+    
+    public Page<Customer> getCustomersPage(PageCursor cursor, int pageSize) {
+        return metrics.timed("CustomerService.getCustomersPage", () -> {
+            logger.info("Retrieving customer page: {}", cursor);
+            return customerDAO.findPage(cursor, pageSize);
+        });
     }
     
     public List<Customer> searchCustomersByName(String name) {
-        logger.info("Searching customers by name: " + name);
-        return customerDAO.findByName(name);
+        return metrics.timed("CustomerService.searchCustomersByName", () -> {
+            logger.info("Searching customers by name: {}", name);
+            return customerDAO.findByName(name);
+        });
+    }
+    
+    //ranked substring search over name, email or both
+    public List<Customer> searchCustomers(String query, CustomerSearchField field) {
+        return metrics.timed("CustomerService.searchCustomers", () -> {
+            logger.info("Searching customers by {}: {}", field, query);
+            List<Customer> matchingCustomers = customerDAO.search(query, field, SEARCH_LIMIT);
+            
+            logger.info("Found {} customers matching: {}", matchingCustomers.size(), query);
+            return matchingCustomers;
+        });
     }
     
     public void updateCustomer(Customer customer) {
-        logger.info("Updating customer: " + customer.getId());
-        
-        //checks if customer exists
-        Customer existingCustomer = customerDAO.findById(customer.getId());
-        if (existingCustomer == null) {
-            logger.warning("Attempted to update non-existent customer: " + customer.getId());
-            throw new IllegalArgumentException("Customer not found: " + customer.getId());
-        }
-        
-        customerDAO.update(customer);
-        logger.info("Customer updated successfully: " + customer.getId());
+        metrics.timed("CustomerService.updateCustomer", () -> {
+            logger.info("Updating customer: {}", customer.getId());
+            
+            //checks if customer exists
+            Customer existingCustomer = customerDAO.findById(customer.getId());
+            if (existingCustomer == null) {
+                logger.warning("Attempted to update non-existent customer: {}", customer.getId());
+                throw new IllegalArgumentException("Customer not found: " + customer.getId());
+            }
+            
+            customerDAO.update(customer);
+            logger.info("Customer updated successfully: {}", customer.getId());
+        });
     }
     
     public void deleteCustomer(String id) {
-        logger.info("Deleting customer: " + id);
-        customerDAO.delete(id);
+        metrics.timed("CustomerService.deleteCustomer", () -> {
+            logger.info("Deleting customer: {}", id);
+            customerDAO.delete(id);
+        });
     }
 }
@@ -1,18 +1,19 @@
 package main.java.service;
 
 import main.java.dao.OrderDAO;
-import main.java.dao.ProductDAO;
+import main.java.dao.Page;
+import main.java.dao.PageCursor;
 import main.java.exception.InsufficientStockException;
 import main.java.exception.InvalidOrderException;
-import main.java.exception.ProductNotFoundException;
 import main.java.model.Order;
 import main.java.model.OrderItem;
-import main.java.model.Product;
 import main.java.model.OrderStatus;
 import main.java.util.LoggerUtil;
+import main.java.util.MetricsRegistry;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * orderservice handles business logic for order operations.
@@ -24,98 +25,115 @@ import java.util.List;
  * - add payment processing
  */
 public class OrderService {
+    static final String ORDERS_CREATED = "OrderService.ordersCreated";
+    static final String ORDERS_FAILED = "OrderService.errors";
+    static final String STOCK_REJECTIONS = "OrderService.stockRejections";
+    
     private final OrderDAO orderDAO;
-    private final ProductDAO productDAO;
     private final LoggerUtil logger;
+    private final MetricsRegistry metrics;
     
     public OrderService() {
         this.orderDAO = OrderDAO.getInstance();
-        this.productDAO = ProductDAO.getInstance();
         this.logger = LoggerUtil.getInstance();
+        this.metrics = MetricsRegistry.getInstance();
+        metrics.registerMBean("Service", "OrderService", new OrderServiceStats(metrics));
         logger.info("OrderService initialized");
     }
     
     public void createOrder(Order order) throws InvalidOrderException {
-        logger.info("Creating order: " + order.getId());
-        
-        //validates order
-        if (order.getItems().isEmpty()) {
-            logger.warning("Attempted to create order with no items: " + order.getId());
-            throw new InvalidOrderException("Order must contain at least one item");
-        }
-        
-        try {
-            //checks product availability and update stock
+        metrics.timed("OrderService.createOrder", () -> {
+            logger.info("Creating order: {}", order.getId());
+            
+            //validates order
+            if (order.getItems().isEmpty()) {
+                logger.warning("Attempted to create order with no items: {}", order.getId());
+                throw new InvalidOrderException("Order must contain at least one item");
+            }
+            
             for (OrderItem item : order.getItems()) {
-                String productId = item.getProduct().getId();
-                int quantity = item.getQuantity();
-                
-                updateProductStock(productId, -quantity);
+                if (item.getQuantity() <= 0) {
+                    logger.warning("Attempted to create order with non-positive quantity: {}", order.getId());
+                    throw new InvalidOrderException("Item quantity must be positive");
+                }
             }
             
-            //save order
-            orderDAO.save(order);
-            logger.info("Order created successfully: " + order.getId());
-        } catch (Exception e) {
-            logger.exception("Error creating order", e);
-            throw new InvalidOrderException("Failed to create order: " + e.getMessage());
-        }
+            try {
+                //takes stock and saves the order in one transaction
+                orderDAO.placeOrder(order);
+                metrics.meter(ORDERS_CREATED).mark();
+                logger.info("Order created successfully: {}", order.getId());
+            } catch (Exception e) {
+                metrics.counter(ORDERS_FAILED).increment();
+                if (e instanceof InsufficientStockException) {
+                    metrics.counter(STOCK_REJECTIONS).increment();
+                }
+                logger.exception("Error creating order", e);
+                throw new InvalidOrderException("Failed to create order: " + e.getMessage(), e);
+            }
+        });
     }
     
     public Order getOrder(String id) {
-        logger.info("Retrieving order: " + id);
-        return orderDAO.findById(id);
+        return metrics.timed("OrderService.getOrder", () -> {
+            logger.info("Retrieving order: {}", id);
+            return orderDAO.findById(id);
+        });
     }
     
     public List<Order> getAllOrders() {
-        logger.info("Retrieving all orders");
-        return orderDAO.findAll();
+        return metrics.timed("OrderService.getAllOrders", () -> {
+            logger.info("Retrieving all orders");
+            return orderDAO.findAll();
+        });
+    }
+    
+    //streams all orders for exports, the caller must close the stream, which also ends the timing
+    public Stream<Order> streamAllOrders() {
+        MetricsRegistry.Timing timing = metrics.time("OrderService.streamAllOrders");
+        logger.info("Streaming all orders");
+        try {
+            return orderDAO.streamAll().onClose(timing::close);
+        } catch (RuntimeException e) {
+            timing.close();
+            throw e;
+        }
+    }
+    
+    public Page<Order> getOrdersPage(PageCursor cursor, int pageSize) {
+        return metrics.timed("OrderService.getOrdersPage", () -> {
+            logger.info("Retrieving order page: {}", cursor);
+            return orderDAO.findPage(cursor, pageSize);
+        });
     }
     
     public List<Order> getOrdersByCustomer(String customerId) {
-        logger.info("Retrieving orders for customer: " + customerId);
-        return orderDAO.findByCustomerId(customerId);
+        return metrics.timed("OrderService.getOrdersByCustomer", () -> {
+            logger.info("Retrieving orders for customer: {}", customerId);
+            return orderDAO.findByCustomerId(customerId);
+        });
     }
     
     public List<Order> getOrdersByDateRange(LocalDateTime start, LocalDateTime end) {
-        logger.info("Retrieving orders between " + start + " and " + end);
-        return orderDAO.findByDateRange(start, end);
+        return metrics.timed("OrderService.getOrdersByDateRange", () -> {
+            logger.info("Retrieving orders between {} and {}", start, end);
+            return orderDAO.findByDateRange(start, end);
+        });
     }
     
     public void updateOrderStatus(String orderId, OrderStatus newStatus) throws InvalidOrderException {
-        logger.info("Updating order status: " + orderId + " to " + newStatus);
-        
-        Order order = orderDAO.findById(orderId);
-        if (order == null) {
-            logger.warning("Attempted to update non-existent order: " + orderId);
-            throw new InvalidOrderException("Order not found: " + orderId);
-        }
-        
-        order.setStatus(newStatus);
-        orderDAO.update(order);
-        logger.info("Order status updated: " + orderId);
-    }
-    
-    private void updateProductStock(String productId, int quantityChange) 
-            throws ProductNotFoundException, InsufficientStockException {
-        Product product = productDAO.findById(productId);
-        
-        if (product == null) {
-            logger.warning("Product not found: " + productId);
-            throw new ProductNotFoundException("Product not found: " + productId);
-        }
-        
-        int newStock = product.getStock() + quantityChange;
-        
-        if (newStock < 0) {
-            logger.warning("Insufficient stock for product: " + productId);
-            throw new InsufficientStockException(
-                    "Insufficient stock for product " + product.getName() + 
-                    ". Available: " + product.getStock());
-        }
-        
-        product.setStock(newStock);
-        productDAO.update(product);
-        logger.info("Updated stock for product " + productId + ": " + newStock);
+        metrics.timed("OrderService.updateOrderStatus", () -> {
+            logger.info("Updating order status: {} to {}", orderId, newStatus);
+            
+            Order order = orderDAO.findById(orderId);
+            if (order == null) {
+                logger.warning("Attempted to update non-existent order: {}", orderId);
+                throw new InvalidOrderException("Order not found: " + orderId);
+            }
+            
+            order.setStatus(newStatus);
+            orderDAO.update(order);
+            logger.info("Order status updated: {}", orderId);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package main.java.service;
+
+import main.java.util.ComponentStats;
+import main.java.util.MetricsRegistry;
+
+//mxbean for OrderService, registered as orderly:type=Service,name=OrderService
+class OrderServiceStats extends ComponentStats implements OrderServiceStatsMXBean {
+    
+    OrderServiceStats(MetricsRegistry metrics) {
+        super(metrics, "OrderService");
+    }
+    
+    @Override
+    public long getOrdersCreated() {
+        return getMetrics().meter(OrderService.ORDERS_CREATED).getCount();
+    }
+    
+    @Override
+    public double getOrdersCreatedPerSecond() {
+        return getMetrics().meter(OrderService.ORDERS_CREATED).getOneMinuteRate();
+    }
+    
+    @Override
+    public long getOrdersFailed() {
+        return getMetrics().counter(OrderService.ORDERS_FAILED).getCount();
+    }
+    
+    @Override
+    public long getStockRejections() {
+        return getMetrics().counter(OrderService.STOCK_REJECTIONS).getCount();
+    }
+}
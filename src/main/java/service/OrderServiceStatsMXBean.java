@@ -0,0 +1,19 @@
+package main.java.service;
+
+import main.java.util.ComponentStatsMXBean;
+
+/**
+ * jmx view of the order service: the generic per-method statistics plus
+ * order throughput and stock rejections.
+ */
+public interface OrderServiceStatsMXBean extends ComponentStatsMXBean {
+    long getOrdersCreated();
+    
+    //average over the last minute
+    double getOrdersCreatedPerSecond();
+    
+    long getOrdersFailed();
+    
+    //orders rejected with InsufficientStockException
+    long getStockRejections();
+}
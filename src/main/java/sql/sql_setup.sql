@@ -16,12 +16,49 @@ FLUSH PRIVILEGES;
 USE orderly;
 
 -- Note: Table creation is handled automatically by the DatabaseManager class
+-- through versioned migrations, recorded in the schema_version table
 -- Tables created:
 --   - products
 --   - customers
 --   - orders
 --   - order_items
+--   - schema_version
 -- For .env file configuration, use:
 -- DB_URL=jdbc:mysql://localhost:3306/orderly (or whatever port you're using)
 -- DB_USER=<username>
 -- DB_PASSWORD=<password>
+-- DB_DRIVER=com.mysql.cj.jdbc.Driver (JDBC driver class, e.g. org.h2.Driver for the test database)
+-- Optional connection pool settings (defaults shown):
+-- DB_POOL_MAX_SIZE=10
+-- DB_POOL_MIN_IDLE=2
+-- DB_POOL_ACQUIRE_TIMEOUT_MS=30000
+-- DB_POOL_IDLE_TIMEOUT_MS=600000
+-- DB_POOL_MAX_LIFETIME_MS=1800000
+-- DB_POOL_VALIDATION_TIMEOUT_S=5
+-- DB_STATEMENT_CACHE_SIZE=64   (prepared statements cached per pooled connection, 0 disables)
+-- DB_SERVER_PREPARE=true       (adds useServerPrepStmts=true to MySQL urls)
+-- DB_REWRITE_BATCHES=true      (adds rewriteBatchedStatements=true to MySQL urls)
+-- DB_BATCH_SIZE=1000           (order lines per JDBC batch when saving an order)
+-- DB_STREAM_FETCH_SIZE=-2147483648 (fetch size for order exports, Integer.MIN_VALUE streams row by row)
+-- DB_IN_LIST_SIZE=1000        (ids per IN query when looking up many products or customers, shorter lists are padded to 1/4/16/64/256 ids)
+-- DB_LOADER_WINDOW_MICROS=0   (how long a findById miss waits for more keys while other loads are running)
+-- PRODUCT_CACHE_SIZE=10000     (products kept in the in-process lookup cache)
+-- PRODUCT_CACHE_TTL_SECONDS=300
+-- CUSTOMER_CACHE_SIZE=10000    (customers kept in the lookup cache shared with order loading)
+-- CUSTOMER_CACHE_TTL_SECONDS=300
+-- PRODUCT_SEARCH_LIMIT=200     (maximum rows returned by product searches)
+-- CUSTOMER_SEARCH_INDEX=false  (in-memory trigram index for customer name/email search, built by the app at startup; ~0.5 KB heap per customer)
+-- CUSTOMER_SEARCH_LIMIT=200    (maximum rows returned by customer searches)
+-- LOG_ASYNC=false              (true writes log records on a background thread)
+-- LOG_QUEUE_CAPACITY=8192      (records buffered for the log writer thread)
+-- LOG_OVERFLOW_POLICY=BLOCK    (BLOCK, DROP_DEBUG or DROP_OLDEST when the log queue is full)
+-- LOG_MAX_FILE_MB=100          (orderly.log is rolled over at this size, 0 disables)
+-- LOG_ROTATE_HOURS=24          (orderly.log is also rolled on these boundaries, 0 disables)
+-- LOG_MAX_FILES=10             (rolled log files kept, 0 keeps all)
+-- LOG_COMPRESS=true            (gzip rolled log files in the background)
+-- LOG_FORMAT=text              (json writes one JSON object per line to the log file)
+-- LOG_LEVEL=INFO              (WARNING keeps only problems, DEBUG adds detail)
+-- METRICS_REPORT_INTERVAL_S=60 (seconds between metrics reports in the log, 0 disables)
+-- JFR_EVENTS=false            (true emits orderly.Statement and orderly.Operation flight recorder events)
+-- DB_SLOW_QUERY_MS=0          (statements slower than this are logged and EXPLAINed, 0 disables)
+-- DB_SLOW_QUERY_LOG_PARAMETERS=false (true logs bound values of slow statements, which may be personal data; otherwise only their types)
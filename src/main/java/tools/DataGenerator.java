@@ -0,0 +1,383 @@
+package main.java.tools;
+
+import main.java.dao.DatabaseManager;
+import main.java.model.Customer;
+import main.java.model.Order;
+import main.java.model.OrderItem;
+import main.java.model.OrderStatus;
+import main.java.model.Product;
+import main.java.util.DotEnv;
+import main.java.util.LoggerUtil;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * datagenerator fills a database with a realistic amount of synthetic
+ * products, customers and orders, built from the model classes and written
+ * with multi-row inserts.
+ *
+ * the rows are split into fixed-size chunks and every chunk is generated
+ * from its own random seeded by (seed, entity, chunk), so the data does not
+ * depend on how many threads ran or in which order. each chunk commits
+ * together with a row in generator_progress, which makes an interrupted run
+ * resumable: start it again with the same arguments and finished chunks are
+ * skipped.
+ *
+ * usage, all key=value arguments optional (defaults shown):
+ *   java -cp "bin;lib\mysql-connector-j-9.2.0.jar" main.java.tools.DataGenerator
+ *       products=300000 customers=5000000 orders=50000000 seed=42 threads=<cores> chunk=10000 rows=1000
+ *
+ * order line counts and product choice follow zipf distributions, so most
+ * orders are small and a few products are in most of them. generated ids
+ * start with G (GP, GC, GO) and don't collide with ids entered in the app.
+ * threads is capped at DB_POOL_MAX_SIZE, one pooled connection per writer.
+ */
+public class DataGenerator {
+    private static final String PROGRESS_TABLE = "generator_progress";
+    //fixed, so the same seed always produces the same dates
+    private static final LocalDateTime FIRST_ORDER_DATE = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final int ORDER_DAYS = 3 * 365;
+    private static final int MAX_LINES = 40;
+    
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+        "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+        "Wei", "Aisha", "Carlos", "Priya", "Olga", "Kenji", "Fatima", "Liam", "Sofia", "Mateo"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Chen", "Khan", "Patel", "Ivanova", "Tanaka", "Nguyen", "Kowalski", "Murphy", "Rossi", "Silva"
+    };
+    private static final String[] ADJECTIVES = {
+        "Basic", "Premium", "Compact", "Wireless", "Portable", "Heavy Duty", "Classic", "Smart", "Eco", "Deluxe"
+    };
+    private static final String[] NOUNS = {
+        "Keyboard", "Mouse", "Monitor", "Desk Lamp", "Headphones", "Backpack", "Water Bottle", "Notebook",
+        "Charger", "Speaker", "Chair", "Cable", "Webcam", "Router", "Mug", "Jacket", "Sneakers", "Watch"
+    };
+    
+    private enum Entity { PRODUCTS, CUSTOMERS, ORDERS }
+    
+    private final Map<Entity, Long> counts = new HashMap<>();
+    private final long seed;
+    private final int threads;
+    private final int chunkSize;
+    private final int rowsPerInsert;
+    private final DatabaseManager dbManager;
+    
+    private LoadGenerator.ZipfSampler productSampler;
+    private LoadGenerator.ZipfSampler lineSampler;
+    
+    DataGenerator(Map<String, String> settings) {
+        counts.put(Entity.PRODUCTS, Long.parseLong(settings.getOrDefault("products", "300000")));
+        counts.put(Entity.CUSTOMERS, Long.parseLong(settings.getOrDefault("customers", "5000000")));
+        counts.put(Entity.ORDERS, Long.parseLong(settings.getOrDefault("orders", "50000000")));
+        seed = Long.parseLong(settings.getOrDefault("seed", "42"));
+        threads = Integer.parseInt(settings.getOrDefault("threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        chunkSize = Integer.parseInt(settings.getOrDefault("chunk", "10000"));
+        rowsPerInsert = Integer.parseInt(settings.getOrDefault("rows", "1000"));
+        
+        if (threads <= 0 || chunkSize <= 0 || rowsPerInsert <= 0) {
+            throw new IllegalArgumentException("threads, chunk and rows must be positive");
+        }
+        if (counts.get(Entity.ORDERS) > 0 && (counts.get(Entity.PRODUCTS) == 0 || counts.get(Entity.CUSTOMERS) == 0)) {
+            throw new IllegalArgumentException("orders need at least one product and one customer");
+        }
+        dbManager = DatabaseManager.getInstance();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        DotEnv.load();
+        //one info line per insert would dominate the run
+        if (DotEnv.get("LOG_LEVEL") == null) {
+            System.setProperty("LOG_LEVEL", "WARNING");
+        }
+        LoggerUtil.getInstance().configureFromEnv();
+        
+        Map<String, String> settings = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                System.err.println("Ignoring argument " + arg + ", expected key=value");
+                continue;
+            }
+            settings.put(arg.substring(0, equals).trim().toLowerCase(Locale.ROOT), arg.substring(equals + 1).trim());
+        }
+        
+        new DataGenerator(settings).run();
+        System.exit(0);
+    }
+    
+    void run() throws SQLException, InterruptedException {
+        Set<String> done = readProgress();
+        productSampler = new LoadGenerator.ZipfSampler((int) Math.max(1, counts.get(Entity.PRODUCTS)), 1.0);
+        lineSampler = new LoadGenerator.ZipfSampler(MAX_LINES, 1.5);
+        
+        //more writers than pooled connections would only queue for a connection
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, DotEnv.getInt("DB_POOL_MAX_SIZE", 10)));
+        try {
+            //orders reference both, so they go last
+            for (Entity entity : Entity.values()) {
+                generate(pool, entity, done);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        System.out.println("Done");
+    }
+    
+    private void generate(ExecutorService pool, Entity entity, Set<String> done) throws InterruptedException {
+        long count = counts.get(entity);
+        long chunks = (count + chunkSize - 1) / chunkSize;
+        long start = System.nanoTime();
+        AtomicLong finished = new AtomicLong();
+        AtomicLong rows = new AtomicLong();
+        long reportEvery = Math.max(1, chunks / 100);
+        
+        List<Future<?>> futures = new ArrayList<>();
+        for (long chunk = 0; chunk < chunks; chunk++) {
+            if (done.contains(entity + ":" + chunk)) {
+                finished.incrementAndGet();
+                continue;
+            }
+            long c = chunk;
+            futures.add(pool.submit(() -> {
+                rows.addAndGet(writeChunk(entity, c, count));
+                long n = finished.incrementAndGet();
+                if (n % reportEvery == 0 || n == chunks) {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%-9s %5.1f%%  %,d rows written, %,.0f rows/s%n",
+                            entity.name().toLowerCase(Locale.ROOT), 100.0 * n / chunks,
+                            rows.get(), rows.get() / Math.max(seconds, 1e-9));
+                }
+                return null;
+            }));
+        }
+        System.out.printf("%s: %,d rows in %,d chunks, %,d already done%n",
+                entity.name().toLowerCase(Locale.ROOT), count, chunks, chunks - futures.size());
+        
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error generating " + entity.name().toLowerCase(Locale.ROOT)
+                        + ": " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+    
+    //writes one chunk and its progress row in a single transaction, returns the rows inserted
+    private long writeChunk(Entity entity, long chunk, long count) throws SQLException {
+        Random random = new Random(chunkSeed(entity, chunk));
+        long first = chunk * chunkSize;
+        long last = Math.min(count, first + chunkSize);
+        
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long rows;
+                switch (entity) {
+                    case PRODUCTS:
+                        rows = writeProducts(conn, random, first, last);
+                        break;
+                    case CUSTOMERS:
+                        rows = writeCustomers(conn, random, first, last);
+                        break;
+                    default:
+                        rows = writeOrders(conn, random, first, last);
+                        break;
+                }
+                
+                String sql = "INSERT INTO " + PROGRESS_TABLE + " (entity, chunk, seed, chunk_size) VALUES (?, ?, ?, ?)";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, entity.name());
+                    pstmt.setLong(2, chunk);
+                    pstmt.setLong(3, seed);
+                    pstmt.setInt(4, chunkSize);
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+                return rows;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    private long writeProducts(Connection conn, Random random, long first, long last) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = first; i < last; i++) {
+            Product product = new Product.Builder()
+                    .id(productId(i))
+                    .name(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                            + NOUNS[random.nextInt(NOUNS.length)] + " " + (100 + random.nextInt(900)))
+                    .price(BigDecimal.valueOf(99 + random.nextInt(50_000), 2).doubleValue())
+                    .description("Generated product " + i)
+                    .stock(random.nextInt(1_000))
+                    .build();
+            rows.add(new Object[] { product.getId(), product.getName(), product.getPrice(),
+                    product.getDescription(), product.getStock() });
+        }
+        insertRows(conn, "products", "id, name, price, description, stock", rows);
+        return rows.size();
+    }
+    
+    private long writeCustomers(Connection conn, Random random, long first, long last) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = first; i < last; i++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            Customer customer = new Customer(customerId(i), firstName + " " + lastName,
+                    (firstName + "." + lastName + i + "@example.com").toLowerCase(Locale.ROOT));
+            rows.add(new Object[] { customer.getId(), customer.getName(), customer.getEmail() });
+        }
+        insertRows(conn, "customers", "id, name, email", rows);
+        return rows.size();
+    }
+    
+    private long writeOrders(Connection conn, Random random, long first, long last) throws SQLException {
+        long products = counts.get(Entity.PRODUCTS);
+        List<Object[]> orderRows = new ArrayList<>();
+        List<Object[]> itemRows = new ArrayList<>();
+        
+        for (long i = first; i < last; i++) {
+            Customer customer = new Customer(customerId(Math.floorMod(random.nextLong(), counts.get(Entity.CUSTOMERS))), null, null);
+            LocalDateTime date = FIRST_ORDER_DATE.plusSeconds((long) (random.nextDouble() * ORDER_DAYS * 86_400L));
+            Order order = new Order(orderId(i), customer, date);
+            order.setStatus(status(random, date));
+            
+            //an order can't hold the same product twice
+            int lines = (int) Math.min(lineSampler.next(random) + 1, products);
+            Set<Integer> chosen = new LinkedHashSet<>();
+            while (chosen.size() < lines) {
+                chosen.add(productSampler.next(random));
+            }
+            for (int product : chosen) {
+                order.addItem(new Product.Builder().id(productId(product)).build(), 1 + random.nextInt(5));
+            }
+            
+            orderRows.add(new Object[] { order.getId(), customer.getId(),
+                    Timestamp.valueOf(order.getOrderDate()), order.getStatus().name() });
+            for (OrderItem item : order.getItems()) {
+                itemRows.add(new Object[] { order.getId(), item.getProduct().getId(), item.getQuantity() });
+            }
+        }
+        
+        insertRows(conn, "orders", "id, customer_id, order_date, status", orderRows);
+        insertRows(conn, "order_items", "order_id, product_id, quantity", itemRows);
+        return orderRows.size() + itemRows.size();
+    }
+    
+    //older orders are mostly completed, recent ones still open
+    private static OrderStatus status(Random random, LocalDateTime date) {
+        int roll = random.nextInt(100);
+        if (roll < 4) {
+            return OrderStatus.CANCELLED;
+        }
+        boolean recent = date.isAfter(FIRST_ORDER_DATE.plusDays(ORDER_DAYS - 30));
+        if (!recent) {
+            return OrderStatus.COMPLETED;
+        }
+        return roll < 40 ? OrderStatus.NEW : roll < 70 ? OrderStatus.PROCESSING : OrderStatus.COMPLETED;
+    }
+    
+    //one INSERT ... VALUES (...), (...) per rowsPerInsert rows
+    private void insertRows(Connection conn, String table, String columns, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int width = rows.get(0).length;
+        String tuple = "(" + String.join(", ", Collections.nCopies(width, "?")) + ")";
+        
+        for (int from = 0; from < rows.size(); from += rowsPerInsert) {
+            int to = Math.min(rows.size(), from + rowsPerInsert);
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(columns).append(") VALUES ");
+            for (int i = from; i < to; i++) {
+                sql.append(i > from ? ", " : "").append(tuple);
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (int i = from; i < to; i++) {
+                    for (Object value : rows.get(i)) {
+                        pstmt.setObject(index++, value);
+                    }
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+    
+    //finished chunks from earlier runs, refusing to mix in rows from another seed or chunk size
+    private Set<String> readProgress() throws SQLException {
+        Set<String> done = new HashSet<>();
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + PROGRESS_TABLE + " ("
+                    + "entity VARCHAR(20) NOT NULL, "
+                    + "chunk BIGINT NOT NULL, "
+                    + "seed BIGINT NOT NULL, "
+                    + "chunk_size INT NOT NULL, "
+                    + "PRIMARY KEY (entity, chunk))");
+            
+            try (ResultSet rs = stmt.executeQuery("SELECT entity, chunk, seed, chunk_size FROM " + PROGRESS_TABLE)) {
+                while (rs.next()) {
+                    if (rs.getLong("seed") != seed || rs.getInt("chunk_size") != chunkSize) {
+                        throw new IllegalStateException("Database was generated with seed=" + rs.getLong("seed")
+                                + " chunk=" + rs.getInt("chunk_size") + ", resume with the same values or use an empty database");
+                    }
+                    done.add(rs.getString("entity") + ":" + rs.getLong("chunk"));
+                }
+            }
+        }
+        return done;
+    }
+    
+    private long chunkSeed(Entity entity, long chunk) {
+        //splitmix64 finaliser, so neighbouring chunks get unrelated streams
+        long z = seed + (entity.ordinal() + 1) * 0x9E3779B97F4A7C15L + chunk * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    private static String productId(long i) {
+        return String.format("GP%08d", i);
+    }
+    
+    private static String customerId(long i) {
+        return String.format("GC%09d", i);
+    }
+    
+    private static String orderId(long i) {
+        return String.format("GO%010d", i);
+    }
+}
@@ -0,0 +1,484 @@
+package main.java.tools;
+
+import main.java.dao.Page;
+import main.java.dao.PageCursor;
+import main.java.exception.InsufficientStockException;
+import main.java.exception.ProductNotFoundException;
+import main.java.model.Customer;
+import main.java.model.Order;
+import main.java.model.OrderStatus;
+import main.java.model.Product;
+import main.java.service.CustomerService;
+import main.java.service.OrderService;
+import main.java.service.ProductService;
+import main.java.util.DotEnv;
+import main.java.util.LoggerUtil;
+import main.java.util.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * loadgenerator drives OrderService, ProductService and CustomerService
+ * headlessly with a synthetic order flow, for capacity planning.
+ *
+ * the load is open loop: requests are scheduled at a fixed arrival rate
+ * whether or not earlier ones have finished, and response time is measured
+ * from the scheduled start. a stall therefore shows up as queueing delay in
+ * the percentiles instead of quietly lowering the offered load (coordinated
+ * omission). service time, measured from when a worker picked the request
+ * up, is reported next to it.
+ *
+ * usage, all key=value arguments optional:
+ *   java -cp "bin;lib\mysql-connector-j-9.2.0.jar" main.java.tools.LoadGenerator
+ *       rate=200 duration=60 threads=32 mix=70,20,10 zipf=1.1 report=5 csv=load.csv
+ *
+ * rate is requests per second, mix is the percentage of order creation,
+ * lookups and status updates, zipf is the skew of product popularity (0 for
+ * uniform). requests are generated from a seeded random, so two runs with
+ * the same arguments offer the same workload.
+ */
+public class LoadGenerator {
+    private static final int RECENT_ORDERS = 1_024;
+    private static final int PAGE_SIZE = 1_000;
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+    
+    private enum Operation { CREATE_ORDER, LOOKUP, UPDATE_STATUS }
+    
+    private final Map<String, String> settings;
+    private final double rate;
+    private final long durationSeconds;
+    private final int threads;
+    private final int[] mix;
+    private final int maxLines;
+    private final long reportSeconds;
+    
+    private final OrderService orderService = new OrderService();
+    private final ProductService productService = new ProductService();
+    private final CustomerService customerService = new CustomerService();
+    
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong orderSequence = new AtomicLong();
+    private final AtomicReferenceArray<String> recentOrders = new AtomicReferenceArray<>(RECENT_ORDERS);
+    private final AtomicLong recentCount = new AtomicLong();
+    
+    private final AtomicReference<Interval> interval = new AtomicReference<>(new Interval());
+    private final Interval total = new Interval();
+    private ThreadPoolExecutor workers;
+    private PrintWriter csv;
+    private long startNanos;
+    
+    private List<String> productIds;
+    private List<Customer> customers;
+    private ZipfSampler productSampler;
+    
+    LoadGenerator(Map<String, String> settings) {
+        this.settings = settings;
+        this.rate = Double.parseDouble(setting("rate", "100"));
+        this.durationSeconds = Long.parseLong(setting("duration", "60"));
+        this.threads = Integer.parseInt(setting("threads", "16"));
+        this.maxLines = Integer.parseInt(setting("lines", "5"));
+        this.reportSeconds = Long.parseLong(setting("report", "5"));
+        
+        String[] parts = setting("mix", "70,20,10").split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("mix needs three percentages: create,lookup,status");
+        }
+        mix = new int[3];
+        for (int i = 0; i < 3; i++) {
+            mix[i] = Integer.parseInt(parts[i].trim());
+        }
+        if (mix[0] + mix[1] + mix[2] != 100) {
+            throw new IllegalArgumentException("mix percentages must add up to 100");
+        }
+        if (rate <= 0 || durationSeconds <= 0 || threads <= 0 || maxLines <= 0 || reportSeconds <= 0) {
+            throw new IllegalArgumentException("rate, duration, threads, lines and report must be positive");
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        DotEnv.load();
+        //per-request info logging would swamp the report, unless asked for
+        if (DotEnv.get("LOG_LEVEL") == null) {
+            System.setProperty("LOG_LEVEL", "WARNING");
+        }
+        LoggerUtil.getInstance().configureFromEnv();
+        
+        Map<String, String> settings = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                System.err.println("Ignoring argument " + arg + ", expected key=value");
+                continue;
+            }
+            settings.put(arg.substring(0, equals).trim().toLowerCase(Locale.ROOT), arg.substring(equals + 1).trim());
+        }
+        
+        new LoadGenerator(settings).run();
+        System.exit(0);
+    }
+    
+    private String setting(String key, String defaultValue) {
+        return settings.getOrDefault(key, defaultValue);
+    }
+    
+    void run() throws IOException, InterruptedException {
+        loadEntities();
+        Random random = new Random(Long.parseLong(setting("seed", "42")));
+        productSampler = new ZipfSampler(productIds.size(), Double.parseDouble(setting("zipf", "1.0")));
+        //popularity shouldn't follow id order, the hot skus are spread over the catalog
+        Collections.shuffle(productIds, random);
+        
+        if (settings.containsKey("csv")) {
+            csv = new PrintWriter(Files.newBufferedWriter(Paths.get(setting("csv", "load.csv"))));
+            csv.println("elapsed_s,operation,count,errors,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,service_p99_ms,backlog");
+        }
+        
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("orderly-load"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemonThreads("orderly-load-report"));
+        
+        System.out.printf("Offering %.1f requests/s for %d s on %d threads, mix create/lookup/status %d/%d/%d%n",
+                rate, durationSeconds, threads, mix[0], mix[1], mix[2]);
+        System.out.printf("%d products (zipf %s), %d customers%n%n",
+                productIds.size(), setting("zipf", "1.0"), customers.size());
+        
+        startNanos = System.nanoTime();
+        reporter.scheduleAtFixedRate(this::reportInterval, reportSeconds, reportSeconds, TimeUnit.SECONDS);
+        schedule(random);
+        
+        workers.shutdown();
+        if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+            System.out.println("Requests still running after 60 s, stopping without them");
+        }
+        reporter.shutdownNow();
+        reportInterval();
+        report("TOTAL", total, (System.nanoTime() - startNanos) / 1e9);
+        if (csv != null) {
+            csv.close();
+        }
+    }
+    
+    //issues requests at their scheduled times, never waiting for earlier ones
+    private void schedule(Random random) {
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        
+        for (long n = 0; ; n++) {
+            long intended = startNanos + n * periodNanos;
+            if (intended >= endNanos) {
+                return;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            
+            Runnable request = newRequest(random, intended);
+            workers.execute(request);
+        }
+    }
+    
+    //picks the operation and its arguments up front so the workload is reproducible
+    private Runnable newRequest(Random random, long intended) {
+        int roll = random.nextInt(100);
+        if (roll < mix[0]) {
+            Order order = new Order("LG-" + runId + "-" + orderSequence.incrementAndGet(),
+                    customers.get(random.nextInt(customers.size())));
+            Set<Integer> lines = new LinkedHashSet<>();
+            int wanted = 1 + random.nextInt(Math.min(maxLines, productIds.size()));
+            for (int attempt = 0; lines.size() < wanted && attempt < wanted * 4; attempt++) {
+                lines.add(productSampler.next(random));
+            }
+            List<Integer> quantities = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                quantities.add(1 + random.nextInt(3));
+            }
+            return () -> execute(Operation.CREATE_ORDER, intended, () -> createOrder(order, lines, quantities));
+        }
+        
+        if (roll < mix[0] + mix[1]) {
+            int kind = random.nextInt(10);
+            String productId = productIds.get(productSampler.next(random));
+            String customerId = customers.get(random.nextInt(customers.size())).getId();
+            int recent = random.nextInt(RECENT_ORDERS);
+            return () -> execute(Operation.LOOKUP, intended, () -> lookup(kind, productId, customerId, recent));
+        }
+        
+        int recent = random.nextInt(RECENT_ORDERS);
+        OrderStatus status = random.nextBoolean() ? OrderStatus.PROCESSING : OrderStatus.COMPLETED;
+        return () -> execute(Operation.UPDATE_STATUS, intended, () -> updateStatus(recent, status));
+    }
+    
+    private void createOrder(Order order, Set<Integer> lines, List<Integer> quantities) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int index : lines) {
+            ids.add(productIds.get(index));
+        }
+        //one batched lookup for all lines of the order
+        Map<String, Product> products = productService.getProducts(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            Product product = products.get(ids.get(i));
+            if (product == null) {
+                throw new ProductNotFoundException("Product not found with ID: " + ids.get(i));
+            }
+            order.addItem(product, quantities.get(i));
+        }
+        orderService.createOrder(order);
+        recentOrders.set((int) (recentCount.getAndIncrement() % RECENT_ORDERS), order.getId());
+    }
+    
+    //half product lookups, the rest customers and recently created orders
+    private void lookup(int kind, String productId, String customerId, int recent) throws Exception {
+        String orderId = recentOrders.get(recent % RECENT_ORDERS);
+        if (kind < 5) {
+            productService.getProduct(productId);
+        } else if (kind < 8 || orderId == null) {
+            customerService.getCustomer(customerId);
+        } else {
+            orderService.getOrder(orderId);
+        }
+    }
+    
+    private void updateStatus(int recent, OrderStatus status) throws Exception {
+        long created = recentCount.get();
+        if (created == 0) {
+            return;
+        }
+        String orderId = recentOrders.get((int) (recent % Math.min(created, RECENT_ORDERS)));
+        orderService.updateOrderStatus(orderId, status);
+    }
+    
+    private interface Call {
+        void run() throws Exception;
+    }
+    
+    private void execute(Operation operation, long intended, Call call) {
+        long begin = System.nanoTime();
+        String error = null;
+        try {
+            call.run();
+        } catch (Exception e) {
+            error = classify(e);
+        }
+        long end = System.nanoTime();
+        
+        interval.get().record(operation, end - intended, end - begin, error);
+        total.record(operation, end - intended, end - begin, error);
+    }
+    
+    //names the failure after the first cause we recognise
+    static String classify(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof InsufficientStockException) {
+                return "insufficient-stock";
+            }
+            if (t instanceof SQLTimeoutException) {
+                return "timeout";
+            }
+            if (t instanceof SQLException) {
+                SQLException sql = (SQLException) t;
+                //mysql 1213 and sqlstate 40001 are deadlock / serialization failures
+                if (sql.getErrorCode() == 1213 || "40001".equals(sql.getSQLState())) {
+                    return "deadlock";
+                }
+                if (sql.getErrorCode() == 1205) {
+                    return "lock-wait-timeout";
+                }
+                return "sql-" + sql.getErrorCode();
+            }
+        }
+        return failure.getClass().getSimpleName();
+    }
+    
+    private void loadEntities() {
+        productIds = new ArrayList<>();
+        PageCursor cursor = PageCursor.first("id");
+        int maxProducts = Integer.parseInt(setting("products", "100000"));
+        while (cursor != null && productIds.size() < maxProducts) {
+            Page<Product> page = productService.getProductsPage(cursor, PAGE_SIZE);
+            for (Product product : page.getItems()) {
+                productIds.add(product.getId());
+            }
+            cursor = page.getNextCursor();
+        }
+        
+        customers = new ArrayList<>();
+        cursor = PageCursor.first("id");
+        int maxCustomers = Integer.parseInt(setting("customers", "100000"));
+        while (cursor != null && customers.size() < maxCustomers) {
+            Page<Customer> page = customerService.getCustomersPage(cursor, PAGE_SIZE);
+            customers.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        }
+        
+        if (productIds.isEmpty() || customers.isEmpty()) {
+            throw new IllegalStateException("The database needs products and customers to generate load, seed it first");
+        }
+    }
+    
+    private void reportInterval() {
+        Interval finished = interval.getAndSet(new Interval());
+        report(String.format("%5ds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos)),
+                finished, (System.nanoTime() - finished.startNanos) / 1e9);
+    }
+    
+    private synchronized void report(String label, Interval stats, double seconds) {
+        long completed = stats.completed.sum();
+        long errors = 0;
+        for (LongAdder count : stats.errors.values()) {
+            errors += count.sum();
+        }
+        int backlog = workers.getQueue().size();
+        
+        System.out.printf("[%s] %.1f ops/s, %d errors%s, backlog %d%n",
+                label, completed / Math.max(seconds, 1e-9), errors, describe(stats.errors), backlog);
+        for (Operation operation : Operation.values()) {
+            MetricsRegistry.Timer response = stats.response.get(operation);
+            if (response.getCount() == 0) {
+                continue;
+            }
+            MetricsRegistry.Timer service = stats.service.get(operation);
+            System.out.printf("    %-14s n=%-7d p50=%8.2f p90=%8.2f p99=%8.2f p99.9=%8.2f max=%8.2f ms  (service p99=%.2f ms)%n",
+                    operation.name().toLowerCase(Locale.ROOT), response.getCount(),
+                    millis(response.getPercentileNanos(PERCENTILES[0])),
+                    millis(response.getPercentileNanos(PERCENTILES[1])),
+                    millis(response.getPercentileNanos(PERCENTILES[2])),
+                    millis(response.getPercentileNanos(PERCENTILES[3])),
+                    millis(response.getMaxNanos()),
+                    millis(service.getPercentileNanos(0.99)));
+            
+            if (csv != null && stats != total) {
+                csv.printf(Locale.ROOT, "%d,%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%d%n",
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos),
+                        operation.name().toLowerCase(Locale.ROOT), response.getCount(),
+                        stats.operationErrors.get(operation).sum(),
+                        millis(response.getPercentileNanos(PERCENTILES[0])),
+                        millis(response.getPercentileNanos(PERCENTILES[1])),
+                        millis(response.getPercentileNanos(PERCENTILES[2])),
+                        millis(response.getPercentileNanos(PERCENTILES[3])),
+                        millis(response.getMaxNanos()),
+                        millis(service.getPercentileNanos(0.99)),
+                        backlog);
+                csv.flush();
+            }
+        }
+    }
+    
+    private static String describe(Map<String, LongAdder> errors) {
+        if (errors.isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(" (");
+        for (Map.Entry<String, LongAdder> error : new TreeMap<>(errors).entrySet()) {
+            if (text.length() > 2) {
+                text.append(", ");
+            }
+            text.append(error.getKey()).append('=').append(error.getValue().sum());
+        }
+        return text.append(')').toString();
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+    
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicLong count = new AtomicLong();
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    //latencies and errors for one reporting interval (or the whole run)
+    private static class Interval {
+        private final long startNanos = System.nanoTime();
+        private final Map<Operation, MetricsRegistry.Timer> response = new EnumMap<>(Operation.class);
+        private final Map<Operation, MetricsRegistry.Timer> service = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> operationErrors = new EnumMap<>(Operation.class);
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final LongAdder completed = new LongAdder();
+        
+        Interval() {
+            for (Operation operation : Operation.values()) {
+                response.put(operation, new MetricsRegistry.Timer());
+                service.put(operation, new MetricsRegistry.Timer());
+                operationErrors.put(operation, new LongAdder());
+            }
+        }
+        
+        void record(Operation operation, long responseNanos, long serviceNanos, String error) {
+            response.get(operation).record(responseNanos);
+            service.get(operation).record(serviceNanos);
+            completed.increment();
+            if (error != null) {
+                operationErrors.get(operation).increment();
+                errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+            }
+        }
+    }
+    
+    /**
+     * draws ranks 0..n-1 with probability proportional to 1 / (rank + 1)^s,
+     * by binary search over the precomputed cumulative distribution.
+     */
+    static class ZipfSampler {
+        private final double[] cumulative;
+        
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+        
+        int next(Random random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package main.java.ui;
 
+import main.java.dao.Page;
+import main.java.dao.PageCursor;
+import main.java.dao.SlowQueryLog;
 import main.java.exception.InvalidOrderException;
 import main.java.exception.ProductNotFoundException;
 import main.java.model.*;
@@ -25,6 +28,9 @@ import java.util.*;
  */
 
 public class ConsoleUI {
+    //rows per page in the list views
+    private static final int PAGE_SIZE = 20;
+    
     private final Scanner scanner;
     private final ProductService productService;
     private final CustomerService customerService;
@@ -65,9 +71,12 @@ public class ConsoleUI {
                         displayReportMenu();
                         break;
                     case 5:
-                        displayHelp();
+                        displayAdminMenu();
                         break;
                     case 6:
+                        displayHelp();
+                        break;
+                    case 7:
                         logger.info("User chose to exit application");
                         displayExitScreen();
                         running = false;
@@ -105,8 +114,9 @@ public class ConsoleUI {
         System.out.println("| 2. Customer Management                               |");
         System.out.println("| 3. Order Management                                  |");
         System.out.println("| 4. Reports                                           |");
-        System.out.println("| 5. Help                                              |");
-        System.out.println("| 6. Exit                                              |");
+        System.out.println("| 5. Administration                                    |");
+        System.out.println("| 6. Help                                              |");
+        System.out.println("| 7. Exit                                              |");
         System.out.println("+------------------------------------------------------+");
     }
 
@@ -199,15 +209,25 @@ public class ConsoleUI {
         logger.info("User requested to view all products");
         
         try {
-            List<Product> products = productService.getAllProducts();
-            if (products.isEmpty()) {
-                System.out.println("No products found.");
-                logger.info("Product catalog is empty");
-                return;
+            //pages through the table so large catalogs are never loaded at once
+            PageCursor cursor = PageCursor.first("name");
+            int shown = 0;
+            while (true) {
+                Page<Product> page = productService.getProductsPage(cursor, PAGE_SIZE);
+                if (page.getItems().isEmpty() && shown == 0) {
+                    System.out.println("No products found.");
+                    logger.info("Product catalog is empty");
+                    return;
+                }
+                
+                displayProductTable(page.getItems());
+                shown += page.getItems().size();
+                if (!page.hasNext() || !getStringInput("Show next page? (y/n): ").equalsIgnoreCase("y")) {
+                    break;
+                }
+                cursor = page.getNextCursor();
             }
-    
-            displayProductTable(products);
-            logger.info("Displayed " + products.size() + " products");
+            logger.info("Displayed " + shown + " products");
         } catch (Exception e) {
             System.out.println("Error retrieving products: " + e.getMessage());
             logger.exception("Error while retrieving products", e);
@@ -492,15 +512,24 @@ public class ConsoleUI {
         logger.info("User requested to view all customers");
         
         try {
-            List<Customer> customers = customerService.getAllCustomers();
-            if (customers.isEmpty()) {
-                System.out.println("No customers found.");
-                logger.info("Customer list is empty");
-                return;
+            PageCursor cursor = PageCursor.first("name");
+            int shown = 0;
+            while (true) {
+                Page<Customer> page = customerService.getCustomersPage(cursor, PAGE_SIZE);
+                if (page.getItems().isEmpty() && shown == 0) {
+                    System.out.println("No customers found.");
+                    logger.info("Customer list is empty");
+                    return;
+                }
+                
+                displayCustomerTable(page.getItems());
+                shown += page.getItems().size();
+                if (!page.hasNext() || !getStringInput("Show next page? (y/n): ").equalsIgnoreCase("y")) {
+                    break;
+                }
+                cursor = page.getNextCursor();
             }
-            
-            displayCustomerTable(customers);
-            logger.info("Displayed " + customers.size() + " customers");
+            logger.info("Displayed " + shown + " customers");
         } catch (Exception e) {
             System.out.println("Error retrieving customers: " + e.getMessage());
             logger.exception("Error while retrieving customers", e);
@@ -595,18 +624,11 @@ public class ConsoleUI {
                     break;
                 case 2:
                     searchTerm = getStringInput("Enter customer name: ");
-                    customers = customerService.searchCustomersByName(searchTerm);
+                    customers = customerService.searchCustomers(searchTerm, CustomerSearchField.NAME);
                     break;
                 case 3:
                     searchTerm = getStringInput("Enter customer email: ");
-                    //todo - implement email search
-                    //this is a simple placeholder that searches all customers
-                    List<Customer> allCustomers = customerService.getAllCustomers();
-                    for (Customer c : allCustomers) {
-                        if (c.getEmail().toLowerCase().contains(searchTerm.toLowerCase())) {
-                            customers.add(c);
-                        }
-                    }
+                    customers = customerService.searchCustomers(searchTerm, CustomerSearchField.EMAIL);
                     break;
                 case 4:
                     return;
@@ -863,15 +885,24 @@ public class ConsoleUI {
         logger.info("User requested to view all orders");
         
         try {
-            List<Order> orders = orderService.getAllOrders();
-            if (orders.isEmpty()) {
-                System.out.println("No orders found.");
-                logger.info("Order list is empty");
-                return;
+            PageCursor cursor = PageCursor.first("id");
+            int shown = 0;
+            while (true) {
+                Page<Order> page = orderService.getOrdersPage(cursor, PAGE_SIZE);
+                if (page.getItems().isEmpty() && shown == 0) {
+                    System.out.println("No orders found.");
+                    logger.info("Order list is empty");
+                    return;
+                }
+                
+                displayOrderTable(page.getItems());
+                shown += page.getItems().size();
+                if (!page.hasNext() || !getStringInput("Show next page? (y/n): ").equalsIgnoreCase("y")) {
+                    break;
+                }
+                cursor = page.getNextCursor();
             }
-            
-            displayOrderTable(orders);
-            logger.info("Displayed " + orders.size() + " orders");
+            logger.info("Displayed " + shown + " orders");
         } catch (Exception e) {
             System.out.println("Error retrieving orders: " + e.getMessage());
             logger.exception("Error while retrieving orders", e);
@@ -1174,6 +1205,72 @@ public class ConsoleUI {
         System.out.println("+--------------------------------------------------+");
     }
     
+    //administration
+    
+    private void displayAdminMenu() {
+        boolean back = false;
+        while (!back) {
+            System.out.println("\n+------------------------------------------------------+");
+            System.out.println("|                  ADMINISTRATION                      |");
+            System.out.println("+------------------------------------------------------+");
+            System.out.println("| 1. Slow Query Report (Top 10)                        |");
+            System.out.println("| 2. Reset Query Statistics                            |");
+            System.out.println("| 3. Back to Main Menu                                 |");
+            System.out.println("+------------------------------------------------------+");
+            
+            int choice = getIntInput("Enter your choice: ");
+            logger.info("User selected admin menu option: {}", choice);
+            
+            switch (choice) {
+                case 1:
+                    displaySlowQueryReport();
+                    break;
+                case 2:
+                    if (SlowQueryLog.isEnabled()) {
+                        SlowQueryLog.getInstance().reset();
+                        System.out.println("Query statistics cleared.");
+                    } else {
+                        System.out.println("Slow query log is disabled.");
+                    }
+                    break;
+                case 3:
+                    back = true;
+                    break;
+                default:
+                    System.out.println("Invalid choice. Please try again.");
+                    logger.warning("Invalid admin menu choice: {}", choice);
+            }
+        }
+    }
+    
+    private void displaySlowQueryReport() {
+        System.out.println("\n===== Slow Query Report =====");
+        if (!SlowQueryLog.isEnabled()) {
+            System.out.println("Slow query log is disabled. Set DB_SLOW_QUERY_MS in .env to enable it.");
+            return;
+        }
+        
+        List<SlowQueryLog.StatementStats> top = SlowQueryLog.getInstance().getTopStatements(10);
+        if (top.isEmpty()) {
+            System.out.println("No statements recorded yet.");
+            return;
+        }
+        
+        System.out.println("Threshold: " + SlowQueryLog.getThresholdMillis() + " ms, ordered by total time");
+        int rank = 1;
+        for (SlowQueryLog.StatementStats stats : top) {
+            System.out.printf("\n%2d. %s\n", rank++, stats.getShape());
+            System.out.printf("    calls=%d  slow=%d  total=%.1f ms  avg=%.2f ms  max=%.2f ms\n",
+                    stats.getCount(), stats.getSlowCount(), stats.getTotalNanos() / 1_000_000.0,
+                    stats.getMeanMillis(), stats.getMaxMillis());
+            if (stats.getPlan() != null) {
+                System.out.println("    plan: " + stats.getPlan().replace("\n", "\n          "));
+            }
+        }
+        
+        getStringInput("\nPress Enter to continue...");
+    }
+    
     private void displayHelp() {
         System.out.println("\n+------------------------------------------------------+");
         System.out.println("|                      HELP                            |");
@@ -1199,6 +1296,9 @@ public class ConsoleUI {
         System.out.println("| Reports:                                             |");
         System.out.println("| - Generate inventory, order and customer reports     |");
         System.out.println("|                                                      |");
+        System.out.println("| Administration:                                      |");
+        System.out.println("| - Top 10 slowest SQL statements (DB_SLOW_QUERY_MS)   |");
+        System.out.println("|                                                      |");
         System.out.println("| For more information, please contact support.        |");
         System.out.println("+------------------------------------------------------+");
         
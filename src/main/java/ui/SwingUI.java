@@ -10,10 +10,13 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
+import main.java.dao.Page;
+import main.java.dao.PageCursor;
 import main.java.service.CustomerService;
 import main.java.service.OrderService;
 import main.java.service.ProductService;
 import main.java.model.Customer;
+import main.java.model.CustomerSearchField;
 import main.java.model.Order;
 import main.java.model.OrderItem;
 import main.java.model.OrderStatus;
@@ -21,6 +24,13 @@ import main.java.model.Product;
 import main.java.util.LoggerUtil;
 
 public class SwingUI extends JFrame {
+    //rows fetched per "Load More" click in the list views
+    private static final int TABLE_PAGE_SIZE = 200;
+    //client property of a list table holding the cursor of its next page
+    private static final String NEXT_PAGE = "nextPage";
+    //pause in typing before a search box queries the database
+    private static final int SEARCH_DELAY_MS = 300;
+    
     private final ProductService productService;
     private final CustomerService customerService;
     //store OrderService as a field so we can call it everywhere
@@ -134,29 +144,38 @@ public class SwingUI extends JFrame {
         JTextField searchField = new JTextField(20);
         searchPanel.add(searchField);
         
+        //searches the database once typing pauses instead of filtering the loaded page
+        Timer searchTimer = new Timer(SEARCH_DELAY_MS, __ -> searchProducts(searchField.getText(), productsTable));
+        searchTimer.setRepeats(false);
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void insertUpdate(DocumentEvent e) { searchProducts(searchField.getText(), sorter); }
+            public void insertUpdate(DocumentEvent e) { searchTimer.restart(); }
             @Override
-            public void removeUpdate(DocumentEvent e) { searchProducts(searchField.getText(), sorter); }
+            public void removeUpdate(DocumentEvent e) { searchTimer.restart(); }
             @Override
-            public void changedUpdate(DocumentEvent e) { searchProducts(searchField.getText(), sorter); }
+            public void changedUpdate(DocumentEvent e) { searchTimer.restart(); }
         });
         
         //button panel
         JPanel buttonPanel = new JPanel();
         JButton refreshButton = new JButton("Refresh");
+        JButton loadMoreButton = new JButton("Load More");
         JButton addButton = new JButton("Add Product");
         JButton editButton = new JButton("Edit Product");
         JButton deleteButton = new JButton("Delete Product");
         JButton backButton = new JButton("Back to Main Menu");
         
+        //enabled while the table has another page to load
+        loadMoreButton.setEnabled(false);
+        
         //initially disable edit/delete until a row is selected
         editButton.setEnabled(false);
         deleteButton.setEnabled(false);
         
         //add action listeners
         refreshButton.addActionListener(__ -> refreshProductsTable(productsTable));
+        loadMoreButton.addActionListener(__ -> loadProductsPage(productsTable, nextPage(productsTable)));
+        productsTable.addPropertyChangeListener(NEXT_PAGE, e -> loadMoreButton.setEnabled(e.getNewValue() != null));
         addButton.addActionListener(__ -> showAddProductDialog(productsTable));
         editButton.addActionListener(__ -> {
             int row = productsTable.getSelectedRow();
@@ -184,6 +203,7 @@ public class SwingUI extends JFrame {
         });
         
         buttonPanel.add(refreshButton);
+        buttonPanel.add(loadMoreButton);
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
@@ -201,25 +221,47 @@ public class SwingUI extends JFrame {
         return panel;
     }
     
-    //helper method for product search
-    private void searchProducts(String text, TableRowSorter<TableModel> sorter) {
+    //replaces the table with the products whose name matches, an empty search pages through all of them again
+    private void searchProducts(String text, JTable table) {
         if (text.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            //case-insensitive search across all columns
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + text));
+            refreshProductsTable(table);
+            return;
         }
+        DefaultTableModel model = (DefaultTableModel) table.getModel();
+        model.setRowCount(0);
+        addProductRows(model, productService.searchProductsByName(text.trim()));
+        //search results arrive in one capped list, there is no next page
+        table.putClientProperty(NEXT_PAGE, null);
     }
     
-    //updated table refresh method
+    //updated table refresh method, shows the first page and leaves the rest to "Load More"
     private void refreshProductsTable(JTable table) {
-        List<Product> products = productService.getAllProducts();
         DefaultTableModel model = (DefaultTableModel) table.getModel();
         
         //clear existing data
         model.setRowCount(0);
+        loadProductsPage(table, PageCursor.first("name"));
         
-        //add new data
+        //inform user if no products
+        if (model.getRowCount() == 0) {
+            JOptionPane.showMessageDialog(this, 
+                    "No products found in the database. Add some products to get started.",
+                    "Information", 
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    //appends one page of products and remembers where the next one starts
+    private void loadProductsPage(JTable table, PageCursor cursor) {
+        if (cursor == null) {
+            return;
+        }
+        Page<Product> page = productService.getProductsPage(cursor, TABLE_PAGE_SIZE);
+        addProductRows((DefaultTableModel) table.getModel(), page.getItems());
+        table.putClientProperty(NEXT_PAGE, page.hasNext() ? page.getNextCursor() : null);
+    }
+    
+    private void addProductRows(DefaultTableModel model, List<Product> products) {
         for (Product p : products) {
             model.addRow(new Object[]{
                 p.getId(),
@@ -229,14 +271,6 @@ public class SwingUI extends JFrame {
                 p.getDescription()
             });
         }
-        
-        //inform user if no products
-        if (products.isEmpty()) {
-            JOptionPane.showMessageDialog(this, 
-                    "No products found in the database. Add some products to get started.",
-                    "Information", 
-                    JOptionPane.INFORMATION_MESSAGE);
-        }
     }
     
     //modified add product method with better validation
@@ -535,24 +569,31 @@ public class SwingUI extends JFrame {
         JTextField searchField = new JTextField(20);
         searchPanel.add(searchField);
         
+        //searches the database once typing pauses instead of filtering the loaded page
+        Timer searchTimer = new Timer(SEARCH_DELAY_MS, __ -> searchCustomers(searchField.getText(), customersTable));
+        searchTimer.setRepeats(false);
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void insertUpdate(DocumentEvent e) { searchCustomers(searchField.getText(), sorter); }
+            public void insertUpdate(DocumentEvent e) { searchTimer.restart(); }
             @Override
-            public void removeUpdate(DocumentEvent e) { searchCustomers(searchField.getText(), sorter); }
+            public void removeUpdate(DocumentEvent e) { searchTimer.restart(); }
             @Override
-            public void changedUpdate(DocumentEvent e) { searchCustomers(searchField.getText(), sorter); }
+            public void changedUpdate(DocumentEvent e) { searchTimer.restart(); }
         });
         
         //button panel
         JPanel buttonPanel = new JPanel();
         JButton refreshButton = new JButton("Refresh");
+        JButton loadMoreButton = new JButton("Load More");
         JButton addButton = new JButton("Add Customer");
         JButton editButton = new JButton("Edit Customer");
         JButton deleteButton = new JButton("Delete Customer");
         JButton ordersButton = new JButton("View Orders");
         JButton backButton = new JButton("Back to Main Menu");
         
+        //enabled while the table has another page to load
+        loadMoreButton.setEnabled(false);
+        
         //initially disable edit/delete until a row is selected
         editButton.setEnabled(false);
         deleteButton.setEnabled(false);
@@ -560,6 +601,8 @@ public class SwingUI extends JFrame {
         
         //add action listeners
         refreshButton.addActionListener(__ -> refreshCustomersTable(customersTable));
+        loadMoreButton.addActionListener(__ -> loadCustomersPage(customersTable, nextPage(customersTable)));
+        customersTable.addPropertyChangeListener(NEXT_PAGE, e -> loadMoreButton.setEnabled(e.getNewValue() != null));
         addButton.addActionListener(__ -> showAddCustomerDialog(customersTable));
         editButton.addActionListener(__ -> {
             int row = customersTable.getSelectedRow();
@@ -596,6 +639,7 @@ public class SwingUI extends JFrame {
         });
         
         buttonPanel.add(refreshButton);
+        buttonPanel.add(loadMoreButton);
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
@@ -614,24 +658,46 @@ public class SwingUI extends JFrame {
         return panel;
     }
     
-    //helper method for customer search
-    private void searchCustomers(String text, TableRowSorter<TableModel> sorter) {
+    //replaces the table with the customers whose name or email matches, an empty search pages through all of them again
+    private void searchCustomers(String text, JTable table) {
         if (text.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            //case-insensitive search across all columns
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + text));
+            refreshCustomersTable(table);
+            return;
         }
+        DefaultTableModel model = (DefaultTableModel) table.getModel();
+        model.setRowCount(0);
+        addCustomerRows(model, customerService.searchCustomers(text.trim(), CustomerSearchField.ANY));
+        //search results arrive in one capped list, there is no next page
+        table.putClientProperty(NEXT_PAGE, null);
     }
     
+    //shows the first page, "Load More" appends the rest
     private void refreshCustomersTable(JTable table) {
-        List<Customer> customers = customerService.getAllCustomers();
         DefaultTableModel model = (DefaultTableModel) table.getModel();
         
         //clear existing data
         model.setRowCount(0);
+        loadCustomersPage(table, PageCursor.first("name"));
         
-        //add new data
+        //inform user if no customers
+        if (model.getRowCount() == 0) {
+            JOptionPane.showMessageDialog(this, 
+                    "No customers found in the database. Add some customers to get started.",
+                    "Information", 
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    private void loadCustomersPage(JTable table, PageCursor cursor) {
+        if (cursor == null) {
+            return;
+        }
+        Page<Customer> page = customerService.getCustomersPage(cursor, TABLE_PAGE_SIZE);
+        addCustomerRows((DefaultTableModel) table.getModel(), page.getItems());
+        table.putClientProperty(NEXT_PAGE, page.hasNext() ? page.getNextCursor() : null);
+    }
+    
+    private void addCustomerRows(DefaultTableModel model, List<Customer> customers) {
         for (Customer c : customers) {
             model.addRow(new Object[]{
                 c.getId(),
@@ -639,14 +705,6 @@ public class SwingUI extends JFrame {
                 c.getEmail()
             });
         }
-        
-        //inform user if no customers
-        if (customers.isEmpty()) {
-            JOptionPane.showMessageDialog(this, 
-                    "No customers found in the database. Add some customers to get started.",
-                    "Information", 
-                    JOptionPane.INFORMATION_MESSAGE);
-        }
     }
     
     //modified add customer method with better validation
@@ -1266,17 +1324,23 @@ public class SwingUI extends JFrame {
         //button panel
         JPanel buttonPanel = new JPanel();
         JButton refreshButton = new JButton("Refresh");
+        JButton loadMoreButton = new JButton("Load More");
         JButton createButton = new JButton("Create Order");
         JButton viewButton = new JButton("View Details");
         JButton updateButton = new JButton("Update Status");
         JButton backButton = new JButton("Back to Main Menu");
         
+        //enabled while the table has another page to load
+        loadMoreButton.setEnabled(false);
+        
         //initially disable buttons until a row is selected
         viewButton.setEnabled(false);
         updateButton.setEnabled(false);
         
         //action listeners
         refreshButton.addActionListener(__ -> refreshOrdersTable(ordersTable));
+        loadMoreButton.addActionListener(__ -> loadOrdersPage(ordersTable, nextPage(ordersTable)));
+        ordersTable.addPropertyChangeListener(NEXT_PAGE, e -> loadMoreButton.setEnabled(e.getNewValue() != null));
         createButton.addActionListener(__ -> createNewOrder(ordersTable));
         viewButton.addActionListener(__ -> {
             int row = ordersTable.getSelectedRow();
@@ -1304,6 +1368,7 @@ public class SwingUI extends JFrame {
         });
         
         buttonPanel.add(refreshButton);
+        buttonPanel.add(loadMoreButton);
         buttonPanel.add(createButton);
         buttonPanel.add(viewButton);
         buttonPanel.add(updateButton);
@@ -1321,7 +1386,7 @@ public class SwingUI extends JFrame {
         return panel;
     }
     
-    //helper method for order search
+    //there is no order search on the server, so this only filters the orders already loaded
     private void searchOrders(String text, TableRowSorter<TableModel> sorter) {
         if (text.trim().isEmpty()) {
             sorter.setRowFilter(null);
@@ -1331,15 +1396,31 @@ public class SwingUI extends JFrame {
         }
     }
     
+    //shows the newest orders first, "Load More" appends older ones
     private void refreshOrdersTable(JTable table) {
-        List<Order> orders = orderService.getAllOrders();
         DefaultTableModel model = (DefaultTableModel) table.getModel();
         
         //clear existing data
         model.setRowCount(0);
+        loadOrdersPage(table, PageCursor.firstDescending("order_date"));
         
+        //inform user if no orders
+        if (model.getRowCount() == 0) {
+            JOptionPane.showMessageDialog(this, 
+                    "No orders found in the database. Create some orders to get started.",
+                    "Information", 
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    private void loadOrdersPage(JTable table, PageCursor cursor) {
+        if (cursor == null) {
+            return;
+        }
+        Page<Order> page = orderService.getOrdersPage(cursor, TABLE_PAGE_SIZE);
+        DefaultTableModel model = (DefaultTableModel) table.getModel();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        for (Order order : orders) {
+        for (Order order : page.getItems()) {
             model.addRow(new Object[]{
                 order.getId(),
                 order.getCustomer().getName(),
@@ -1347,14 +1428,12 @@ public class SwingUI extends JFrame {
                 order.getStatus()
             });
         }
-        
-        //inform user if no orders
-        if (orders.isEmpty()) {
-            JOptionPane.showMessageDialog(this, 
-                    "No orders found in the database. Create some orders to get started.",
-                    "Information", 
-                    JOptionPane.INFORMATION_MESSAGE);
-        }
+        table.putClientProperty(NEXT_PAGE, page.hasNext() ? page.getNextCursor() : null);
+    }
+    
+    //cursor of the table's next page, null once every row is shown
+    private PageCursor nextPage(JTable table) {
+        return (PageCursor) table.getClientProperty(NEXT_PAGE);
     }
     
     //method to create a new order
@@ -0,0 +1,259 @@
+package main.java.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * asyncloghandler moves log output off the calling thread. callers only
+ * place the record into a bounded lock-free ring buffer; a single writer
+ * thread drains it in batches, hands each batch to the wrapped handlers and
+ * flushes them once per batch instead of once per line.
+ *
+ * when the ring is full the overflow policy decides what happens:
+ * BLOCK waits for space, DROP_DEBUG discards records below INFO (and waits
+ * for the rest), DROP_OLDEST discards the oldest queued record.
+ *
+ * flush waits on a published sequence: after each batch is written and
+ * flushed the writer publishes how far the ring has been consumed, and
+ * flush returns once that reaches the position of the last record claimed
+ * before it was called.
+ */
+class AsyncLogHandler extends Handler {
+    enum OverflowPolicy { BLOCK, DROP_DEBUG, DROP_OLDEST }
+
+    private static final int MAX_BATCH = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final List<Handler> targets;
+    private final OverflowPolicy policy;
+    private final RingBuffer ring;
+    private final LongAdder dropped = new LongAdder();
+    //ring positions below this are written and flushed (or were dropped)
+    private final AtomicLong published = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean writerIdle;
+    private volatile boolean closed;
+
+    AsyncLogHandler(List<Handler> targets, int capacity, OverflowPolicy policy) {
+        this.targets = targets;
+        this.policy = policy;
+        this.ring = new RingBuffer(capacity);
+        setLevel(Level.ALL);
+
+        writer = new Thread(this::drainLoop, "orderly-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (record == null || !isLoggable(record)) {
+            return;
+        }
+        if (closed) {
+            //the writer is gone (jvm shutdown), nothing left to hand the record to
+            dropped.increment();
+            return;
+        }
+
+        //the message is formatted later on another thread, capture the caller's values now
+        record.getSourceClassName();
+
+        while (!ring.offer(record)) {
+            if (policy == OverflowPolicy.DROP_OLDEST) {
+                if (ring.poll() != null) {
+                    dropped.increment();
+                }
+            } else if (policy == OverflowPolicy.DROP_DEBUG && record.getLevel().intValue() < Level.INFO.intValue()) {
+                dropped.increment();
+                return;
+            } else if (closed) {
+                dropped.increment();
+                return;
+            } else {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void drainLoop() {
+        while (!closed) {
+            if (drainBatch() == 0) {
+                writerIdle = true;
+                //re-check after announcing idleness so a concurrent offer is not missed
+                if (ring.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerIdle = false;
+            }
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        LogRecord record;
+        while (count < MAX_BATCH && (record = ring.poll()) != null) {
+            for (Handler target : targets) {
+                target.publish(record);
+            }
+            count++;
+        }
+        if (count > 0) {
+            for (Handler target : targets) {
+                target.flush();
+            }
+        }
+        //every consumed position is now either written by this batch or was dropped by a producer
+        long consumed = ring.consumed();
+        published.accumulateAndGet(consumed, Math::max);
+        return count;
+    }
+
+    @Override
+    public void flush() {
+        //waits until everything queued so far has been written, not just taken off the ring
+        long claimed = ring.claimed();
+        while (published.get() < claimed && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        for (Handler target : targets) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        //whatever the writer left behind is written here, on the closing thread
+        while (drainBatch() > 0) {
+            //keep draining
+        }
+        for (Handler target : targets) {
+            target.close();
+        }
+    }
+
+    int getQueueDepth() {
+        return ring.size();
+    }
+
+    int getQueueCapacity() {
+        return ring.capacity();
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * bounded multi-producer multi-consumer ring (dmitry vyukov's design).
+     * every slot carries a sequence number that tells producers and consumers
+     * whether it is free for the current lap, so offer and poll only need one
+     * compare-and-set on the shared tail or head counter.
+     */
+    private static class RingBuffer {
+        private final int mask;
+        private final AtomicReferenceArray<LogRecord> slots;
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong();
+
+        RingBuffer(int requestedCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+            mask = capacity - 1;
+            slots = new AtomicReferenceArray<>(capacity);
+            sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(LogRecord record) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - position;
+
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots.set(index, record);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                } else if (difference < 0) {
+                    return false;
+                }
+                //another producer claimed the slot, retry with the new tail
+            }
+        }
+
+        LogRecord poll() {
+            while (true) {
+                long position = head.get();
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - (position + 1);
+
+                if (difference == 0) {
+                    if (head.compareAndSet(position, position + 1)) {
+                        LogRecord record = slots.getAndSet(index, null);
+                        sequences.set(index, position + mask + 1);
+                        return record;
+                    }
+                } else if (difference < 0) {
+                    return null;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return head.get() >= tail.get();
+        }
+
+        //positions handed to producers so far
+        long claimed() {
+            return tail.get();
+        }
+
+        //positions taken off the ring so far
+        long consumed() {
+            return head.get();
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head.get());
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package main.java.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * componentstats reads the metrics a component records under its own name
+ * ("ProductDAO.findById", "ProductDAO.rowsRead", ...) and publishes them as
+ * an mxbean. nothing is stored here, every attribute is read live.
+ */
+public class ComponentStats implements ComponentStatsMXBean {
+    private final MetricsRegistry metrics;
+    private final String component;
+
+    public ComponentStats(MetricsRegistry metrics, String component) {
+        this.metrics = metrics;
+        this.component = component;
+    }
+
+    @Override
+    public Map<String, OperationStats> getOperations() {
+        Map<String, OperationStats> operations = new TreeMap<>();
+        String prefix = component + ".";
+        metrics.getTimers().forEach((name, timer) -> {
+            if (name.startsWith(prefix)) {
+                operations.put(name.substring(prefix.length()), new OperationStats(timer));
+            }
+        });
+        return operations;
+    }
+
+    @Override
+    public long getOperationCount() {
+        long count = 0;
+        for (OperationStats operation : getOperations().values()) {
+            count += operation.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getRowsRead() {
+        return metrics.counter(component + ".rowsRead").getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return metrics.counter(component + ".errors").getCount();
+    }
+
+    protected MetricsRegistry getMetrics() {
+        return metrics;
+    }
+}
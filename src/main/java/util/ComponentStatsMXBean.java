@@ -0,0 +1,18 @@
+package main.java.util;
+
+import java.util.Map;
+
+/**
+ * jmx view of one dao or service: per-method latency plus the component's
+ * row and error counters.
+ */
+public interface ComponentStatsMXBean {
+    //method name to its call count and latency
+    Map<String, OperationStats> getOperations();
+
+    long getOperationCount();
+
+    long getRowsRead();
+
+    long getErrorCount();
+}
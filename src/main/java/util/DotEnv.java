@@ -39,23 +39,60 @@ public class DotEnv {
                     }
                 }
             }
-            initialized = true;
             logger.info(".env file loaded successfully");
         } catch (IOException e) {
             logger.warning("Error loading .env file: " + e.getMessage());
             logger.info("Continuing with default values");
         }
+        //mark as loaded either way so a missing file isn't re-read on every lookup
+        initialized = true;
     }
     
+    //a -Dkey=value system property wins over the .env file, e.g. to point tests at another database
     public static String get(String key) {
         if (!initialized) {
             load();
         }
-        return env.get(key);
+        String override = System.getProperty(key);
+        return override != null ? override : env.get(key);
     }
     
     public static String get(String key, String defaultValue) {
         String value = get(key);
         return value != null ? value : defaultValue;
     }
+    
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid integer for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid number for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
 }
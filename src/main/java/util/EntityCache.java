@@ -0,0 +1,469 @@
+package main.java.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * entitycache is a bounded in-process cache for dao lookups with size and
+ * ttl based eviction.
+ *
+ * eviction follows the w-tinylfu scheme: new entries land in a small lru
+ * window, and when the window overflows its oldest entry has to beat the
+ * main area's lru victim on estimated access frequency (kept in a compact
+ * count-min sketch) to be admitted. this keeps a hot working set resident
+ * even when large scans or one-off lookups stream through the cache. the
+ * main area is a segmented lru split into probation and protected parts.
+ *
+ * loads run outside the lock, so a slow database call never blocks readers
+ * of other keys. a load can therefore finish after a put or invalidate of
+ * the same key; every write bumps a generation, and a loaded value is only
+ * installed when its key wasn't written since the load began (see
+ * beginLoad / putIfUnchanged), so a stale row never overwrites a newer one.
+ */
+public class EntityCache<K, V> {
+    private final String name;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final int maxWindow;
+    private final int maxProtected;
+
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    private final NodeList<K, V> window = new NodeList<>();
+    private final NodeList<K, V> probation = new NodeList<>();
+    private final NodeList<K, V> protectedList = new NodeList<>();
+    private final FrequencySketch sketch;
+
+    //write tracking for loads in progress, guarded by this
+    private long writeGeneration;
+    private long invalidatedAllAt = -1;
+    private final Map<K, Long> recentWrites = new HashMap<>();
+    private final TreeMap<Long, Integer> activeLoads = new TreeMap<>();
+
+    //statistics, guarded by this
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long loads;
+    private long loadNanos;
+    private long maxLoadNanos;
+
+    public EntityCache(String name, int maximumSize, long ttl, TimeUnit unit) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxWindow = Math.max(1, maximumSize / 100);
+        this.maxProtected = (int) ((maximumSize - maxWindow) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * returns the cached value or loads it through the loader. null results
+     * (and null keys) are returned but not cached, and a loaded value is
+     * dropped if the key was written while it was loading.
+     */
+    public V get(K key, Function<K, V> loader) {
+        if (key == null) {
+            return null;
+        }
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        long token = beginLoad();
+        try {
+            long start = System.nanoTime();
+            value = loader.apply(key);
+            long elapsed = System.nanoTime() - start;
+
+            synchronized (this) {
+                loads++;
+                loadNanos += elapsed;
+                maxLoadNanos = Math.max(maxLoadNanos, elapsed);
+                if (value != null && !writtenSince(key, token)) {
+                    putLocked(key, value);
+                }
+            }
+            return value;
+        } finally {
+            endLoad(token);
+        }
+    }
+
+    /**
+     * starts tracking writes for a load done outside the cache. the returned
+     * token goes to putIfUnchanged for each loaded value and to endLoad once
+     * the load is over (in a finally block).
+     */
+    public synchronized long beginLoad() {
+        activeLoads.merge(writeGeneration, 1, Integer::sum);
+        return writeGeneration;
+    }
+
+    //caches a loaded value unless its key was put or invalidated after the load began
+    public synchronized boolean putIfUnchanged(K key, V value, long token) {
+        if (writtenSince(key, token)) {
+            return false;
+        }
+        putLocked(key, value);
+        return true;
+    }
+
+    public synchronized void endLoad(long token) {
+        activeLoads.computeIfPresent(token, (generation, count) -> count == 1 ? null : count - 1);
+        if (activeLoads.isEmpty()) {
+            recentWrites.clear();
+        } else if (recentWrites.size() > maximumSize) {
+            //writes older than every running load can't reject anything any more
+            long oldest = activeLoads.firstKey();
+            Iterator<Long> it = recentWrites.values().iterator();
+            while (it.hasNext()) {
+                if (it.next() <= oldest) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public synchronized V getIfPresent(K key) {
+        if (key == null) {
+            return null;
+        }
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+
+        if (node == null) {
+            misses++;
+            return null;
+        }
+
+        if (isExpired(node, System.nanoTime())) {
+            removeNode(node);
+            expirations++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        onHit(node);
+        return node.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        recordWrite(key);
+        putLocked(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        recordWrite(key);
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            removeNode(node);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidatedAllAt = ++writeGeneration;
+        recentWrites.clear();
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedList.clear();
+    }
+
+    private void recordWrite(K key) {
+        writeGeneration++;
+        if (!activeLoads.isEmpty()) {
+            recentWrites.put(key, writeGeneration);
+        }
+    }
+
+    private boolean writtenSince(K key, long token) {
+        if (invalidatedAllAt > token) {
+            return true;
+        }
+        Long written = recentWrites.get(key);
+        return written != null && written > token;
+    }
+
+    private void putLocked(K key, V value) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            node.value = value;
+            node.writeTime = System.nanoTime();
+            onHit(node);
+            return;
+        }
+
+        node = new Node<>(key, value, System.nanoTime());
+        data.put(key, node);
+        node.queue = window;
+        window.addLast(node);
+        evict();
+    }
+
+    private void onHit(Node<K, V> node) {
+        if (node.queue == probation) {
+            //second hit in the main area promotes to protected
+            probation.remove(node);
+            node.queue = protectedList;
+            protectedList.addLast(node);
+
+            while (protectedList.size > maxProtected) {
+                Node<K, V> demoted = protectedList.removeFirst();
+                demoted.queue = probation;
+                probation.addLast(demoted);
+            }
+        } else {
+            node.queue.moveToLast(node);
+        }
+    }
+
+    private void evict() {
+        //window overflow moves into the main area's probation segment
+        while (window.size > maxWindow) {
+            Node<K, V> node = window.removeFirst();
+            node.queue = probation;
+            probation.addLast(node);
+        }
+
+        while (data.size() > maximumSize) {
+            Node<K, V> candidate = probation.last;
+            Node<K, V> victim = probation.first;
+
+            if (candidate == null || candidate == victim) {
+                //nothing to compare against, drop the lru entry of the main area
+                Node<K, V> lru = probation.first != null ? probation.first : protectedList.first;
+                if (lru == null) {
+                    lru = window.first;
+                }
+                removeNode(lru);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                removeNode(victim);
+            } else {
+                removeNode(candidate);
+            }
+            evictions++;
+        }
+    }
+
+    private void removeNode(Node<K, V> node) {
+        data.remove(node.key);
+        node.queue.remove(node);
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return ttlNanos > 0 && now - node.writeTime >= ttlNanos;
+    }
+
+    //statistics
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getExpirationCount() {
+        return expirations;
+    }
+
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    public synchronized double getAverageLoadMillis() {
+        return loads == 0 ? 0.0 : loadNanos / (double) loads / 1_000_000.0;
+    }
+
+    public synchronized double getMaxLoadMillis() {
+        return maxLoadNanos / 1_000_000.0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s[size=%d/%d, hitRatio=%.3f, hits=%d, misses=%d, evictions=%d, "
+                + "expirations=%d, loads=%d, avgLoad=%.2fms, maxLoad=%.2fms]",
+                name, data.size(), maximumSize, getHitRatio(), hits, misses, evictions,
+                expirations, loads, getAverageLoadMillis(), getMaxLoadMillis());
+    }
+
+    private static class Node<K, V> {
+        final K key;
+        V value;
+        long writeTime;
+        NodeList<K, V> queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    //intrusive doubly linked list, first is the least recently used
+    private static class NodeList<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+        int size;
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> node = first;
+            remove(node);
+            return node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * count-min sketch with four 4-bit counters per key packed into longs.
+     * counters are halved once the number of increments reaches ten times the
+     * cache size, so the estimate favours recent popularity.
+     */
+    private static class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int capacity = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+            table = new long[capacity];
+            tableMask = capacity - 1;
+            sampleSize = 10 * maximumSize;
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            int offset = counter << 2;
+            long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        private void reset() {
+            int odd = 0;
+            for (int i = 0; i < table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions = (additions >>> 1) - (odd >>> 2);
+        }
+
+        private int indexOf(int item, int i) {
+            long hash = (item + SEEDS[i]) * SEEDS[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package main.java.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * jsonlinesformatter writes one compact json object per line, e.g.
+ * {"ts":"2024-05-01T10:15:30.120Z","level":"INFO","thread":"main",
+ * "msg":"Order placed: O1","entity":"O1","elapsed_ms":12}
+ * so log shippers can parse fields without regular expressions. entity,
+ * elapsed_ms and error are only present when the record has them.
+ */
+class JsonLinesFormatter extends Formatter {
+
+    @Override
+    public String format(LogRecord record) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("{\"ts\":\"").append(record.getInstant()).append('"');
+        sb.append(",\"level\":\"").append(record.getLevel().getName()).append('"');
+
+        if (record instanceof OrderlyLogRecord) {
+            OrderlyLogRecord orderlyRecord = (OrderlyLogRecord) record;
+            appendField(sb, "thread", orderlyRecord.getThreadName());
+            appendField(sb, "msg", formatMessage(record));
+            if (orderlyRecord.getEntityId() != null) {
+                appendField(sb, "entity", orderlyRecord.getEntityId());
+            }
+            if (orderlyRecord.getElapsedMillis() >= 0) {
+                sb.append(",\"elapsed_ms\":").append(orderlyRecord.getElapsedMillis());
+            }
+        } else {
+            appendField(sb, "msg", formatMessage(record));
+        }
+
+        if (record.getThrown() != null) {
+            StringWriter trace = new StringWriter();
+            record.getThrown().printStackTrace(new PrintWriter(trace));
+            appendField(sb, "error", trace.toString());
+        }
+
+        return sb.append("}\n").toString();
+    }
+
+    private static void appendField(StringBuilder sb, String name, String value) {
+        sb.append(",\"").append(name).append("\":\"");
+        escape(sb, value == null ? "" : value);
+        sb.append('"');
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package main.java.util;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
@@ -10,16 +15,23 @@ import java.util.logging.SimpleFormatter;
 /**
  * logger utility class provides centralized logging capabilities for the application.
  * implements both file and console logging with configurable levels.
+ * with LOG_ASYNC=true records are handed to a background writer thread
+ * (see asyncloghandler) instead of being written on the caller's thread.
+ * once configured, the log file is rotated by size and time with gzipped
+ * archives (see rotatingfilehandler) and LOG_FORMAT=json switches the file
+ * to json lines (see jsonlinesformatter).
  * 
  * future enhancements:
- * - add custom formatter
- * - implement log rotation
  * - add log filtering options
  */
 public class LoggerUtil {
     private static final String LOG_FILE = "orderly.log";
     private static LoggerUtil instance;
     private final Logger logger;
+    private ConsoleHandler consoleHandler;
+    private Handler fileHandler;
+    private AsyncLogHandler asyncHandler;
+    private boolean configured;
     
     private LoggerUtil() {
         //creates the logger
@@ -36,12 +48,12 @@ public class LoggerUtil {
             }
             
             //create console handler
-            ConsoleHandler consoleHandler = new ConsoleHandler();
+            consoleHandler = new ConsoleHandler();
             consoleHandler.setLevel(Level.INFO);
             logger.addHandler(consoleHandler);
             
-            //create file handler
-            FileHandler fileHandler = new FileHandler(LOG_FILE, true);
+            //create file handler, replaced by the rotating one in configureFromEnv
+            fileHandler = new FileHandler(LOG_FILE, true);
             fileHandler.setLevel(Level.ALL);
             
             //use simple formatter instead of default XML formatter
@@ -65,23 +77,259 @@ public class LoggerUtil {
         return instance;
     }
     
+    /**
+     * applies the logging settings from .env. this cannot happen in the
+     * constructor because dotenv itself logs while loading, so main calls it
+     * once right after DotEnv.load().
+     */
+    public synchronized void configureFromEnv() {
+        if (configured) {
+            return;
+        }
+        configured = true;
+        boolean async = DotEnv.getBoolean("LOG_ASYNC", false);
+        
+        String levelName = DotEnv.get("LOG_LEVEL", "INFO").trim().toUpperCase();
+        try {
+            logger.setLevel("DEBUG".equals(levelName) ? Level.FINE : Level.parse(levelName));
+        } catch (IllegalArgumentException e) {
+            warning("Unknown LOG_LEVEL {}, using INFO", levelName);
+        }
+        
+        Formatter formatter = "json".equalsIgnoreCase(DotEnv.get("LOG_FORMAT", "text").trim())
+                ? new JsonLinesFormatter() : new SimpleFormatter();
+        RotatingFileHandler rotatingHandler;
+        try {
+            //the async writer flushes once per batch, so only synchronous mode flushes per record
+            rotatingHandler = new RotatingFileHandler(LOG_FILE,
+                    DotEnv.getLong("LOG_MAX_FILE_MB", 100) * 1024 * 1024,
+                    TimeUnit.HOURS.toMillis(DotEnv.getLong("LOG_ROTATE_HOURS", 24)),
+                    DotEnv.getInt("LOG_MAX_FILES", 10),
+                    DotEnv.getBoolean("LOG_COMPRESS", true),
+                    !async);
+            rotatingHandler.setFormatter(formatter);
+            rotatingHandler.setLevel(Level.ALL);
+        } catch (IOException e) {
+            warning("Could not enable log rotation: " + e.getMessage());
+            return;
+        }
+        
+        logger.removeHandler(fileHandler);
+        fileHandler.close();
+        fileHandler = rotatingHandler;
+        
+        if (!async) {
+            logger.addHandler(rotatingHandler);
+            return;
+        }
+        
+        int capacity = DotEnv.getInt("LOG_QUEUE_CAPACITY", 8192);
+        String policyName = DotEnv.get("LOG_OVERFLOW_POLICY", "BLOCK").trim().toUpperCase().replace('-', '_');
+        AsyncLogHandler.OverflowPolicy policy;
+        try {
+            policy = AsyncLogHandler.OverflowPolicy.valueOf(policyName);
+        } catch (IllegalArgumentException e) {
+            policy = AsyncLogHandler.OverflowPolicy.BLOCK;
+        }
+        
+        logger.removeHandler(consoleHandler);
+        asyncHandler = new AsyncLogHandler(List.<Handler>of(consoleHandler, rotatingHandler), capacity, policy);
+        logger.addHandler(asyncHandler);
+        Runtime.getRuntime().addShutdownHook(new Thread(asyncHandler::close, "orderly-log-shutdown"));
+        
+        info("Asynchronous logging enabled (queue {}, overflow {})", asyncHandler.getQueueCapacity(), policy);
+        if (!policy.name().equals(policyName)) {
+            warning("Unknown LOG_OVERFLOW_POLICY {}, using BLOCK", policyName);
+        }
+    }
+    
+    //records waiting for the writer thread, always 0 in synchronous mode
+    public int getQueueDepth() {
+        return asyncHandler == null ? 0 : asyncHandler.getQueueDepth();
+    }
+    
+    //records discarded by the overflow policy, always 0 in synchronous mode
+    public long getDroppedCount() {
+        return asyncHandler == null ? 0 : asyncHandler.getDroppedCount();
+    }
+    
+    public boolean isAsync() {
+        return asyncHandler != null;
+    }
+    
+    //blocks until every record logged so far has been written
+    public void flush() {
+        for (Handler handler : logger.getHandlers()) {
+            handler.flush();
+        }
+    }
+    
+    public boolean isDebugEnabled() {
+        return logger.isLoggable(Level.FINE);
+    }
+    
+    public boolean isInfoEnabled() {
+        return logger.isLoggable(Level.INFO);
+    }
+    
+    public boolean isWarningEnabled() {
+        return logger.isLoggable(Level.WARNING);
+    }
+    
     public void info(String message) {
-        logger.info(message);
+        log(Level.INFO, message);
+    }
+    
+    /*
+     * lazy variants: the level is checked before the supplier runs or the
+     * template is formatted, so a disabled statement builds no strings. the
+     * fixed-arity overloads also avoid the varargs array; primitive arguments
+     * are still boxed at the call site (values -128..127 come from the cache).
+     * "{}" in a template is replaced by the next argument.
+     */
+    
+    public void info(Supplier<String> message) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, message.get());
+        }
+    }
+    
+    public void info(String template, Object arg) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, format(template, arg));
+        }
+    }
+    
+    public void info(String template, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, format(template, arg1, arg2));
+        }
+    }
+    
+    public void info(String template, Object arg1, Object arg2, Object arg3) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, format(template, arg1, arg2, arg3));
+        }
+    }
+    
+    public void info(String template, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, format(template, args));
+        }
+    }
+    
+    public void warning(Supplier<String> message) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, message.get());
+        }
+    }
+    
+    public void warning(String template, Object arg) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, format(template, arg));
+        }
+    }
+    
+    public void warning(String template, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, format(template, arg1, arg2));
+        }
+    }
+    
+    public void warning(String template, Object arg1, Object arg2, Object arg3) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, format(template, arg1, arg2, arg3));
+        }
+    }
+    
+    public void warning(String template, Object... args) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, format(template, args));
+        }
+    }
+    
+    public void debug(Supplier<String> message) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, message.get());
+        }
+    }
+    
+    public void debug(String template, Object arg) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, format(template, arg));
+        }
+    }
+    
+    public void debug(String template, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, format(template, arg1, arg2));
+        }
+    }
+    
+    public void debug(String template, Object arg1, Object arg2, Object arg3) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, format(template, arg1, arg2, arg3));
+        }
+    }
+    
+    public void debug(String template, Object... args) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, format(template, args));
+        }
     }
     
     public void warning(String message) {
-        logger.warning(message);
+        log(Level.WARNING, message);
     }
     
     public void severe(String message) {
-        logger.severe(message);
+        log(Level.SEVERE, message);
     }
     
     public void debug(String message) {
-        logger.fine(message);
+        log(Level.FINE, message);
     }
     
     public void exception(String message, Exception e) {
-        logger.log(Level.SEVERE, message, e);
+        if (logger.isLoggable(Level.SEVERE)) {
+            OrderlyLogRecord record = new OrderlyLogRecord(Level.SEVERE, message, null, -1);
+            record.setThrown(e);
+            publish(record);
+        }
+    }
+    
+    /**
+     * logs an INFO record about one entity together with how long the
+     * operation took. json output carries both as separate fields, text
+     * output appends the duration to the message.
+     */
+    public void timed(String entityId, long elapsedMillis, String template, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            String message = format(template, args) + " in " + elapsedMillis + " ms";
+            publish(new OrderlyLogRecord(Level.INFO, message, entityId, elapsedMillis));
+        }
+    }
+    
+    private void log(Level level, String message) {
+        if (logger.isLoggable(level)) {
+            publish(new OrderlyLogRecord(level, message, null, -1));
+        }
+    }
+    
+    private void publish(OrderlyLogRecord record) {
+        record.setLoggerName(logger.getName());
+        logger.log(record);
+    }
+    
+    static String format(String template, Object... args) {
+        StringBuilder sb = new StringBuilder(template.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int marker;
+        while ((marker = template.indexOf("{}", start)) >= 0 && argIndex < args.length) {
+            sb.append(template, start, marker).append(args[argIndex++]);
+            start = marker + 2;
+        }
+        return sb.append(template, start, template.length()).toString();
     }
 }
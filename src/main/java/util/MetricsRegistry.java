@@ -0,0 +1,389 @@
+package main.java.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.EventType;
+
+/**
+ * metricsregistry keeps named counters, gauges and latency timers for the
+ * whole application. recording never takes a lock: counters are LongAdders
+ * and timers drop each measurement into a log-linear histogram backed by an
+ * AtomicLongArray, so hot paths pay a map lookup and a few atomic adds.
+ *
+ * usage: return metrics.timed("OrderDAO.findById", () -> { ... });
+ * time(name) returns the running measurement for work that outlives the
+ * call, e.g. a stream that is timed until it is closed.
+ *
+ * components also publish their metrics as platform mbeans under the
+ * "orderly" domain (see registerMBean) so jconsole can watch them live.
+ *
+ * with JFR_EVENTS=true every timing is also emitted as an orderly.Operation
+ * flight recorder event, so a recording shows each dao and service call on
+ * its thread's timeline. when no recording is running that costs one check.
+ *
+ * future enhancements:
+ * - export to an external monitoring system
+ */
+public class MetricsRegistry {
+    private static final boolean JFR_EVENTS = DotEnv.getBoolean("JFR_EVENTS", false);
+    private static final EventType OPERATION_EVENT = JFR_EVENTS ? EventType.getEventType(OperationEvent.class) : null;
+    private static MetricsRegistry instance;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private ScheduledExecutorService reporter;
+
+    private MetricsRegistry() {
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    public Meter meter(String name) {
+        return meters.computeIfAbsent(name, key -> new Meter());
+    }
+    
+    //starts timing an operation, the measurement is recorded when the timing is closed
+    public Timing time(String name) {
+        return timer(name).time();
+    }
+    
+    //runs the call and records how long it took, also when it throws
+    public <T, E extends Exception> T timed(String name, TimedCall<T, E> call) throws E {
+        Timing timing = time(name);
+        try {
+            return call.call();
+        } finally {
+            timing.close();
+        }
+    }
+    
+    public <E extends Exception> void timed(String name, TimedAction<E> action) throws E {
+        Timing timing = time(name);
+        try {
+            action.run();
+        } finally {
+            timing.close();
+        }
+    }
+
+    //registers a value that is read when metrics are reported, replaces an existing gauge
+    public void gauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public Map<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    public Map<String, Timer> getTimers() {
+        return new TreeMap<>(timers);
+    }
+    
+    public Map<String, Meter> getMeters() {
+        return new TreeMap<>(meters);
+    }
+
+    public Map<String, Double> getGaugeValues() {
+        Map<String, Double> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsDouble()));
+        return values;
+    }
+
+    /**
+     * logs a report every intervalSeconds on a daemon thread. the rate shown
+     * for each timer covers only the last interval; percentiles cover all
+     * measurements since startup.
+     */
+    public synchronized void startReporting(long intervalSeconds) {
+        if (reporter != null || intervalSeconds <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "orderly-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, Long> lastCounts = new ConcurrentHashMap<>();
+        reporter.scheduleAtFixedRate(() -> LoggerUtil.getInstance().info(report(lastCounts, intervalSeconds)),
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * registers an mbean as orderly:type=TYPE[,name=NAME] on the platform
+     * mbean server. a bean already registered under that name is replaced,
+     * so creating a component twice is harmless.
+     */
+    public void registerMBean(String type, String name, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("orderly:type=" + type + (name == null ? "" : ",name=" + name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            LoggerUtil.getInstance().warning("Could not register mbean {}: {}", type, e.getMessage());
+        }
+    }
+
+    //report of every metric, timer rates are averaged over the whole uptime
+    public String report() {
+        return report(null, 0);
+    }
+
+    private String report(Map<String, Long> lastCounts, long intervalSeconds) {
+        double uptimeSeconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder sb = new StringBuilder("Metrics report (uptime ")
+                .append(String.format("%.0f", uptimeSeconds)).append(" s)");
+
+        getTimers().forEach((name, timer) -> {
+            long count = timer.getCount();
+            if (count == 0) {
+                return;
+            }
+            double rate;
+            if (lastCounts != null) {
+                Long previous = lastCounts.put(name, count);
+                rate = (count - (previous == null ? 0 : previous)) / (double) intervalSeconds;
+            } else {
+                rate = count / uptimeSeconds;
+            }
+            sb.append(String.format("%n  %-45s count=%d rate=%.2f/s mean=%.3fms p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+                    name, count, rate, timer.getMeanNanos() / 1e6, timer.getPercentileNanos(0.50) / 1e6,
+                    timer.getPercentileNanos(0.99) / 1e6, timer.getPercentileNanos(0.999) / 1e6,
+                    timer.getMaxNanos() / 1e6));
+        });
+        getMeters().forEach((name, meter) ->
+                sb.append(String.format("%n  %-45s %d (%.2f/s last minute)", name, meter.getCount(), meter.getOneMinuteRate())));
+        getCounters().forEach((name, counter) ->
+                sb.append(String.format("%n  %-45s %d", name, counter.getCount())));
+        getGaugeValues().forEach((name, value) ->
+                sb.append(String.format("%n  %-45s %s", name, value == Math.rint(value)
+                        ? String.valueOf(value.longValue()) : String.format("%.3f", value))));
+
+        return sb.toString();
+    }
+
+    public static class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+    }
+    
+    /**
+     * meter counts events and their rate over the last minute, kept as 60
+     * one-second slots that are recycled as time moves on. a slot being
+     * recycled by one thread may lose an increment from another, which is
+     * fine for a rate shown to operators.
+     */
+    public static class Meter {
+        private static final int SLOTS = 60;
+        
+        private final LongAdder count = new LongAdder();
+        private final AtomicLongArray slotCounts = new AtomicLongArray(SLOTS);
+        private final AtomicLongArray slotSeconds = new AtomicLongArray(SLOTS);
+        
+        public void mark() {
+            count.increment();
+            long second = System.currentTimeMillis() / 1000;
+            int slot = (int) (second % SLOTS);
+            long slotSecond = slotSeconds.get(slot);
+            if (slotSecond != second && slotSeconds.compareAndSet(slot, slotSecond, second)) {
+                slotCounts.set(slot, 0);
+            }
+            slotCounts.incrementAndGet(slot);
+        }
+        
+        public long getCount() {
+            return count.sum();
+        }
+        
+        public double getOneMinuteRate() {
+            long now = System.currentTimeMillis() / 1000;
+            long events = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                if (now - slotSeconds.get(i) < SLOTS) {
+                    events += slotCounts.get(i);
+                }
+            }
+            return events / (double) SLOTS;
+        }
+    }
+
+    /**
+     * timer is a latency histogram in the style of hdrhistogram: values below
+     * 2^SUB_BITS nanoseconds get exact buckets, larger values are grouped by
+     * power of two and split into 2^SUB_BITS linear sub-buckets. that keeps
+     * every recorded value within about 3% of its bucket bounds while the
+     * whole long range fits in under 2,000 counters.
+     */
+    public static class Timer {
+        private static final int SUB_BITS = 5;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final String name;
+        
+        public Timer() {
+            this(null);
+        }
+        
+        public Timer(String name) {
+            this.name = name;
+        }
+
+        public Timing time() {
+            OperationEvent event = null;
+            if (name != null && OPERATION_EVENT != null && OPERATION_EVENT.isEnabled()) {
+                event = new OperationEvent();
+                event.begin();
+            }
+            return new Timing(this, System.nanoTime(), event);
+        }
+
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketIndex(value));
+            count.increment();
+            totalNanos.add(value);
+
+            long max = maxNanos.get();
+            while (value > max && !maxNanos.compareAndSet(max, value)) {
+                max = maxNanos.get();
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanNanos() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (double) n;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        //upper bound of the bucket holding the given quantile (0.5 = median)
+        public long getPercentileNanos(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= target) {
+                    return Math.min(bucketUpperBound(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        static int bucketIndex(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int shift = exponent - SUB_BITS;
+            int subBucket = (int) (value >>> shift) - SUB_COUNT;
+            return (shift + 1) * SUB_COUNT + subBucket;
+        }
+
+        static long bucketUpperBound(int index) {
+            if (index < 2 * SUB_COUNT) {
+                return index;
+            }
+            int shift = index / SUB_COUNT - 1;
+            long lower = (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+            return lower + (1L << shift) - 1;
+        }
+    }
+
+    //work measured by timed, free to throw the caller's checked exception
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+    
+    @FunctionalInterface
+    public interface TimedAction<E extends Exception> {
+        void run() throws E;
+    }
+
+    //one running measurement, records the elapsed time into its timer when closed
+    public static class Timing implements AutoCloseable {
+        private final Timer timer;
+        private final long startNanos;
+        private final OperationEvent event;
+
+        Timing(Timer timer, long startNanos, OperationEvent event) {
+            this.timer = timer;
+            this.startNanos = startNanos;
+            this.event = event;
+        }
+
+        @Override
+        public void close() {
+            timer.record(System.nanoTime() - startNanos);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = timer.name;
+                    event.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package main.java.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * flight recorder event for one timed dao or service call, emitted by
+ * MetricsRegistry.Timing. the operation is the timer name, e.g.
+ * "OrderService.createOrder".
+ */
+@Name("orderly.Operation")
+@Label("Operation")
+@Category({ "Orderly", "Operations" })
+@Description("A timed DAO or service method call")
+class OperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+}
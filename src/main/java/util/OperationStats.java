@@ -0,0 +1,35 @@
+package main.java.util;
+
+/**
+ * operationstats is a read-only snapshot of one timer, shaped for jmx:
+ * mxbeans show it as a composite row in jconsole.
+ */
+public class OperationStats {
+    private final long count;
+    private final double meanMillis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    public OperationStats(MetricsRegistry.Timer timer) {
+        this.count = timer.getCount();
+        this.meanMillis = timer.getMeanNanos() / 1e6;
+        this.p99Millis = timer.getPercentileNanos(0.99) / 1e6;
+        this.maxMillis = timer.getMaxNanos() / 1e6;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+}
@@ -0,0 +1,39 @@
+package main.java.util;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * orderlylogrecord is the log record created by loggerutil. besides the
+ * standard fields it remembers the name of the thread that logged it (the
+ * async writer formats records on its own thread) and, for timed events,
+ * the id of the entity involved and how long the operation took.
+ */
+class OrderlyLogRecord extends LogRecord {
+    private static final long serialVersionUID = 1L;
+
+    private final String threadName;
+    private final String entityId;
+    private final long elapsedMillis;
+
+    OrderlyLogRecord(Level level, String message, String entityId, long elapsedMillis) {
+        super(level, message);
+        this.threadName = Thread.currentThread().getName();
+        this.entityId = entityId;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    //null when the record is not about a single entity
+    String getEntityId() {
+        return entityId;
+    }
+
+    //-1 when the record is not timed
+    long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,221 @@
+package main.java.util;
+
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * rotatingfilehandler appends to one active log file (e.g. orderly.log) and
+ * rolls it over to orderly-yyyyMMdd-HHmmss.log once it reaches a size limit
+ * or crosses a time boundary (intervals are aligned to local midnight, so a
+ * 24 hour interval rolls once a day). rolled files are gzipped on a
+ * background thread and only the newest maxFiles are kept.
+ */
+class RotatingFileHandler extends StreamHandler {
+    private static final DateTimeFormatter ROLL_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path file;
+    private final String rolledPrefix;
+    private final String extension;
+    private final long maxBytes;
+    private final long intervalMillis;
+    private final int maxFiles;
+    private final boolean compress;
+    private final boolean flushEachRecord;
+    private final ExecutorService housekeeper;
+    private CountingOutputStream out;
+    private long nextRollAt;
+
+    /**
+     * @param maxBytes        roll once the file reaches this size, 0 disables
+     * @param intervalMillis  roll on every interval boundary, 0 disables
+     * @param maxFiles        rolled files to keep, 0 keeps all of them
+     * @param flushEachRecord false when a caller (the async writer) flushes per batch
+     */
+    RotatingFileHandler(String fileName, long maxBytes, long intervalMillis, int maxFiles,
+            boolean compress, boolean flushEachRecord) throws IOException {
+        this.file = Paths.get(fileName).toAbsolutePath();
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.rolledPrefix = (dot > 0 ? name.substring(0, dot) : name) + "-";
+        this.extension = dot > 0 ? name.substring(dot) : "";
+        this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        this.intervalMillis = intervalMillis;
+        this.maxFiles = maxFiles;
+        this.compress = compress;
+        this.flushEachRecord = flushEachRecord;
+        this.housekeeper = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "orderly-log-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        open(System.currentTimeMillis());
+        //rolled files an earlier run did not get to compress
+        housekeeper.execute(this::compressAndPrune);
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now >= nextRollAt || out.written >= maxBytes) {
+            roll(now);
+        }
+
+        super.publish(record);
+        if (flushEachRecord) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        housekeeper.shutdown();
+        try {
+            housekeeper.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void open(long now) throws IOException {
+        long existing = Files.exists(file) ? Files.size(file) : 0;
+        out = new CountingOutputStream(new FileOutputStream(file.toFile(), true), existing);
+        setOutputStream(out);
+
+        if (intervalMillis <= 0) {
+            nextRollAt = Long.MAX_VALUE;
+            return;
+        }
+        long offset = TimeZone.getDefault().getOffset(now);
+        long periodStart = now - Math.floorMod(now + offset, intervalMillis);
+        //a file left over from an earlier period rolls with the first record
+        boolean stale = existing > 0 && Files.getLastModifiedTime(file).toMillis() < periodStart;
+        nextRollAt = stale ? now : periodStart + intervalMillis;
+    }
+
+    private void roll(long now) {
+        //closes the current stream so the file can be renamed on every platform
+        super.close();
+        try {
+            Path rolled = file.resolveSibling(rolledPrefix + ROLL_STAMP.format(LocalDateTime.now()) + extension);
+            for (int i = 1; Files.exists(rolled) || Files.exists(gzipPath(rolled)); i++) {
+                rolled = file.resolveSibling(rolledPrefix + ROLL_STAMP.format(LocalDateTime.now()) + "-" + i + extension);
+            }
+            if (Files.exists(file)) {
+                Files.move(file, rolled);
+            }
+        } catch (IOException e) {
+            reportError("Could not roll log file " + file, e, ErrorManager.GENERIC_FAILURE);
+        }
+
+        try {
+            open(now);
+        } catch (IOException e) {
+            reportError("Could not reopen log file " + file, e, ErrorManager.OPEN_FAILURE);
+        }
+        if (nextRollAt <= now) {
+            nextRollAt = now + intervalMillis;
+        }
+        housekeeper.execute(this::compressAndPrune);
+    }
+
+    private void compressAndPrune() {
+        try {
+            List<Path> rolledFiles = listRolledFiles();
+            if (compress) {
+                for (int i = 0; i < rolledFiles.size(); i++) {
+                    Path rolled = rolledFiles.get(i);
+                    if (!rolled.toString().endsWith(".gz")) {
+                        rolledFiles.set(i, gzip(rolled));
+                    }
+                }
+            }
+
+            //names start with the roll time, so the newest sort last
+            Collections.sort(rolledFiles);
+            for (int i = 0; maxFiles > 0 && i < rolledFiles.size() - maxFiles; i++) {
+                Files.deleteIfExists(rolledFiles.get(i));
+            }
+        } catch (IOException e) {
+            reportError("Could not compress or prune rolled log files", e, ErrorManager.GENERIC_FAILURE);
+        }
+    }
+
+    private List<Path> listRolledFiles() throws IOException {
+        List<Path> rolledFiles = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(file.getParent(), rolledPrefix + "*")) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.endsWith(extension) || name.endsWith(extension + ".gz")) {
+                    rolledFiles.add(entry);
+                }
+            }
+        }
+        return rolledFiles;
+    }
+
+    private Path gzip(Path source) throws IOException {
+        Path target = gzipPath(source);
+        Path partial = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream gz = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+            in.transferTo(gz);
+        }
+        //the rename makes a half written archive impossible to mistake for a finished one
+        Files.move(partial, target);
+        Files.delete(source);
+        return target;
+    }
+
+    private static Path gzipPath(Path source) {
+        return source.resolveSibling(source.getFileName() + ".gz");
+    }
+
+    //tracks the size of the active file without asking the filesystem on every record
+    private static class CountingOutputStream extends FilterOutputStream {
+        long written;
+
+        CountingOutputStream(OutputStream out, long written) {
+            super(out);
+            this.written = written;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+    }
+}
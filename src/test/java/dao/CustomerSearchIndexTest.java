@@ -0,0 +1,130 @@
+package test.java.dao;
+
+import main.java.dao.CustomerSearchIndex;
+import main.java.model.Customer;
+import main.java.model.CustomerSearchField;
+
+import java.util.List;
+
+//simple test of CustomerSearchIndex, run with -ea
+public class CustomerSearchIndexTest {
+    public static void main(String[] args) {
+        testSubstringSearch();
+        testRanking();
+        testPrefixSearch();
+        testFieldsAndLimit();
+        testUpdateAndDelete();
+        testRebuildKeepsNewerWrites();
+        testCompaction();
+        System.out.println("All tests passed!");
+    }
+
+    private static CustomerSearchIndex sampleIndex() {
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        index.put(new Customer("C1", "John Smith", "john.smith@example.com"));
+        index.put(new Customer("C2", "Jane Smithers", "jane@smithers.org"));
+        index.put(new Customer("C3", "Alice Jones", "alice@example.com"));
+        index.put(new Customer("C4", "Smith", "smith@example.net"));
+        return index;
+    }
+
+    private static void testSubstringSearch() {
+        CustomerSearchIndex index = sampleIndex();
+
+        assert ids(index.search("mith", CustomerSearchField.NAME, 10)).equals("C4,C1,C2")
+                : "Wrong substring matches: " + ids(index.search("mith", CustomerSearchField.NAME, 10));
+        assert ids(index.search("JONES", CustomerSearchField.NAME, 10)).equals("C3") : "Search should ignore case";
+        assert index.search("xyz", CustomerSearchField.ANY, 10).isEmpty() : "Unexpected match";
+
+        //queries shorter than a trigram are still answered
+        assert ids(index.search("al", CustomerSearchField.NAME, 10)).equals("C3") : "Short query failed";
+    }
+
+    private static void testRanking() {
+        CustomerSearchIndex index = sampleIndex();
+        List<Customer> results = index.search("smith", CustomerSearchField.NAME, 10);
+
+        //exact match, then word prefix ("john smith", shorter first), then "jane smithers"
+        assert ids(results).equals("C4,C1,C2") : "Wrong ranking: " + ids(results);
+    }
+
+    private static void testPrefixSearch() {
+        CustomerSearchIndex index = sampleIndex();
+
+        assert ids(index.searchPrefix("ja", CustomerSearchField.NAME, 10)).equals("C2") : "Prefix search failed";
+        assert ids(index.searchPrefix("smi", CustomerSearchField.NAME, 10)).equals("C4")
+                : "Prefix search should ignore later words";
+        assert ids(index.searchPrefix("j", CustomerSearchField.NAME, 10)).equals("C1,C2")
+                : "Single character prefix failed";
+    }
+
+    private static void testFieldsAndLimit() {
+        CustomerSearchIndex index = sampleIndex();
+
+        assert ids(index.search("example.com", CustomerSearchField.EMAIL, 10)).equals("C1,C3")
+                : "Email search failed";
+        assert index.search("example.com", CustomerSearchField.NAME, 10).isEmpty()
+                : "Name search matched an email";
+        assert index.search("smith", CustomerSearchField.ANY, 2).size() == 2 : "Limit not applied";
+
+        //results are copies
+        index.search("alice", CustomerSearchField.NAME, 10).get(0).setName("Changed");
+        assert ids(index.search("alice", CustomerSearchField.NAME, 10)).equals("C3") : "Index entry was modified";
+    }
+
+    private static void testUpdateAndDelete() {
+        CustomerSearchIndex index = sampleIndex();
+
+        index.put(new Customer("C3", "Alice Brown", "alice@example.com"));
+        assert index.search("jones", CustomerSearchField.NAME, 10).isEmpty() : "Old name still indexed";
+        assert ids(index.search("brown", CustomerSearchField.NAME, 10)).equals("C3") : "New name not indexed";
+
+        index.remove("C1");
+        assert ids(index.search("smith", CustomerSearchField.NAME, 10)).equals("C4,C2") : "Deleted customer found";
+        assert index.size() == 3 : "Wrong size after delete: " + index.size();
+    }
+
+    private static void testRebuildKeepsNewerWrites() {
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        index.beginRebuild();
+        assert !index.isReady() : "Index ready before the rebuild finished";
+
+        //a write lands while the scan is still running
+        index.put(new Customer("C1", "New Name", "new@example.com"));
+        index.remove("C2");
+        index.loadScanned(new Customer("C1", "Old Name", "old@example.com"));
+        index.loadScanned(new Customer("C2", "Deleted", "deleted@example.com"));
+        index.loadScanned(new Customer("C3", "Scanned", "scanned@example.com"));
+        index.finishRebuild();
+
+        assert index.isReady() : "Index not ready after rebuild";
+        assert index.search("old name", CustomerSearchField.NAME, 10).isEmpty() : "Scan overwrote a newer write";
+        assert index.search("deleted", CustomerSearchField.ANY, 10).isEmpty() : "Scan resurrected a deleted row";
+        assert index.size() == 2 : "Wrong size after rebuild: " + index.size();
+    }
+
+    private static void testCompaction() {
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                index.put(new Customer("C" + i, "Customer " + i + " round " + round, "c" + i + "@example.com"));
+            }
+        }
+
+        assert index.size() == 1_000 : "Wrong size after updates: " + index.size();
+        assert ids(index.search("customer 42 round 4", CustomerSearchField.NAME, 10)).equals("C42")
+                : "Latest version not found after compaction";
+        assert index.search("round 3", CustomerSearchField.NAME, 10).isEmpty() : "Stale version found";
+    }
+
+    private static String ids(List<Customer> customers) {
+        StringBuilder ids = new StringBuilder();
+        for (Customer customer : customers) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(customer.getId());
+        }
+        return ids.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package test.java.dao;
+
+import main.java.dao.CustomerDAO;
+import main.java.dao.OrderDAO;
+import main.java.dao.ProductDAO;
+import main.java.model.Customer;
+import main.java.model.Order;
+import main.java.model.Product;
+import main.java.service.OrderService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * query budgets for the order read paths, run against an in-memory h2
+ * database in mysql mode with -ea and the h2 jar on the classpath:
+ *
+ *   java -ea -cp "bin;lib\h2-2.2.224.jar" test.java.dao.QueryBudgetTest
+ */
+public class QueryBudgetTest {
+    private static final int CUSTOMERS = 50;
+    private static final int PRODUCTS = 20;
+    private static final int ORDERS = 1_000;
+
+    public static void main(String[] args) {
+        useEmbeddedDatabase();
+        seed();
+        testFindAllBudget();
+        testFindByCustomerBudget();
+        testServiceOrdersBudget();
+        System.out.println("All tests passed!");
+    }
+
+    //system properties take precedence over .env, so this never touches the real database
+    private static void useEmbeddedDatabase() {
+        System.setProperty("DB_DRIVER", "org.h2.Driver");
+        System.setProperty("DB_URL", "jdbc:h2:mem:orderly_budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("DB_USER", "sa");
+        System.setProperty("DB_PASSWORD", "");
+        //the background search index scan would show up in the query counts
+        System.setProperty("CUSTOMER_SEARCH_INDEX", "false");
+    }
+
+    private static void seed() {
+        CustomerDAO customerDAO = CustomerDAO.getInstance();
+        ProductDAO productDAO = ProductDAO.getInstance();
+        OrderDAO orderDAO = OrderDAO.getInstance();
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerDAO.save(new Customer("C" + i, "Customer " + i, "customer" + i + "@example.com"));
+        }
+        for (int i = 0; i < PRODUCTS; i++) {
+            productDAO.save(new Product.Builder()
+                    .id("P" + i)
+                    .name("Product " + i)
+                    .price(1.0 + i)
+                    .description("Budget test product")
+                    .stock(1_000_000)
+                    .build());
+        }
+
+        LocalDateTime start = LocalDateTime.now().minusDays(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order("O" + i, customerDAO.findById("C" + (i % CUSTOMERS)), start.plusDays(i));
+            order.addItem(productDAO.findById("P" + (i % PRODUCTS)), 1);
+            order.addItem(productDAO.findById("P" + ((i + 1) % PRODUCTS)), 2);
+            orderDAO.save(order);
+        }
+    }
+
+    private static void testFindAllBudget() {
+        try (QueryCounter queries = QueryCounter.start()) {
+            List<Order> orders = OrderDAO.getInstance().findAll();
+
+            assert orders.size() == ORDERS : "Expected " + ORDERS + " orders, got " + orders.size();
+            assert orders.get(0).getItems().size() == 2 : "Order lines weren't loaded";
+            queries.assertAtMost(3, "OrderDAO.findAll of " + ORDERS + " orders");
+        }
+    }
+
+    private static void testFindByCustomerBudget() {
+        try (QueryCounter queries = QueryCounter.start()) {
+            List<Order> orders = OrderDAO.getInstance().findByCustomerId("C7");
+
+            assert orders.size() == ORDERS / CUSTOMERS : "Wrong number of orders for customer";
+            queries.assertAtMost(3, "OrderDAO.findByCustomerId");
+        }
+    }
+
+    private static void testServiceOrdersBudget() {
+        OrderService orderService = new OrderService();
+        try (QueryCounter queries = QueryCounter.start()) {
+            orderService.getAllOrders();
+            queries.assertAtMost(3, "OrderService.getAllOrders");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package test.java.dao;
+
+import main.java.dao.DatabaseManager;
+import main.java.dao.SqlShape;
+import main.java.dao.StatementListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * querycounter counts the sql statements the current thread issues, grouped
+ * by statement shape, so a test can hold an operation to a query budget.
+ * a budget failure lists the shapes that repeated, which is where an n+1
+ * loop shows up.
+ *
+ * usage:
+ *   try (QueryCounter queries = QueryCounter.start()) {
+ *       orderDAO.findAll();
+ *       queries.assertAtMost(3, "OrderDAO.findAll");
+ *   }
+ */
+public class QueryCounter implements StatementListener, AutoCloseable {
+    private final Thread owner = Thread.currentThread();
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private int total;
+
+    private QueryCounter() {
+    }
+
+    public static QueryCounter start() {
+        QueryCounter counter = new QueryCounter();
+        DatabaseManager.getInstance().addStatementListener(counter);
+        return counter;
+    }
+
+    @Override
+    public void statementExecuted(String sql, String method, long durationNanos, long rows) {
+        //background threads (pool housekeeping, explain) are not part of the operation
+        if (Thread.currentThread() != owner) {
+            return;
+        }
+        counts.merge(SqlShape.of(sql), 1, Integer::sum);
+        total++;
+    }
+
+    public int getCount() {
+        return total;
+    }
+
+    public void reset() {
+        counts.clear();
+        total = 0;
+    }
+
+    public void assertAtMost(int budget, String operation) {
+        if (total > budget) {
+            throw new AssertionError(report(operation + " issued " + total
+                    + " statements, budget is " + budget));
+        }
+    }
+
+    //headline followed by each shape, most frequent first
+    public String report(String headline) {
+        List<Map.Entry<String, Integer>> shapes = new ArrayList<>(counts.entrySet());
+        shapes.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+
+        StringBuilder report = new StringBuilder(headline);
+        for (Map.Entry<String, Integer> shape : shapes) {
+            report.append("\n  ").append(shape.getValue()).append("x ").append(shape.getKey());
+            if (shape.getValue() > 1) {
+                report.append("  <-- repeated");
+            }
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void close() {
+        DatabaseManager.getInstance().removeStatementListener(this);
+    }
+}
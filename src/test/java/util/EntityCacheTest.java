@@ -0,0 +1,161 @@
+package test.java.util;
+
+import main.java.util.EntityCache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//simple test of EntityCache, run with -ea
+public class EntityCacheTest {
+    public static void main(String[] args) throws Exception {
+        testReadThrough();
+        testSizeBound();
+        testHotKeysSurviveScan();
+        testExpiry();
+        testInvalidate();
+        testLoadRacingWrite();
+        testLoadRacingInvalidate();
+        testNullKey();
+        System.out.println("All tests passed!");
+    }
+
+    private static void testReadThrough() {
+        EntityCache<String, String> cache = new EntityCache<>("test", 10, 0, TimeUnit.SECONDS);
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = cache.get("P001", key -> { loads.incrementAndGet(); return "value-" + key; });
+        String second = cache.get("P001", key -> { loads.incrementAndGet(); return "other"; });
+
+        assert "value-P001".equals(first) : "Loaded value doesn't match";
+        assert "value-P001".equals(second) : "Cached value doesn't match";
+        assert loads.get() == 1 : "Loader should only run once";
+        assert cache.getHitCount() == 1 : "Expected one hit";
+
+        //null results are not cached
+        cache.get("missing", key -> null);
+        cache.get("missing", key -> { loads.incrementAndGet(); return null; });
+        assert loads.get() == 2 : "Missing keys should be reloaded";
+    }
+
+    private static void testSizeBound() {
+        EntityCache<Integer, Integer> cache = new EntityCache<>("test", 100, 0, TimeUnit.SECONDS);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+        }
+        assert cache.size() == 100 : "Cache grew past its maximum size: " + cache.size();
+        assert cache.getEvictionCount() == 900 : "Unexpected eviction count: " + cache.getEvictionCount();
+    }
+
+    private static void testHotKeysSurviveScan() {
+        EntityCache<Integer, Integer> cache = new EntityCache<>("test", 100, 0, TimeUnit.SECONDS);
+
+        //build up frequency for a small hot set
+        for (int round = 0; round < 10; round++) {
+            for (int hot = 0; hot < 20; hot++) {
+                cache.get(hot, key -> key);
+            }
+        }
+
+        //a one-off scan over many cold keys
+        for (int cold = 1_000; cold < 1_500; cold++) {
+            cache.get(cold, key -> key);
+        }
+
+        int resident = 0;
+        for (int hot = 0; hot < 20; hot++) {
+            if (cache.getIfPresent(hot) != null) {
+                resident++;
+            }
+        }
+        assert resident == 20 : "Hot keys were evicted by a scan, resident: " + resident;
+    }
+
+    private static void testExpiry() throws InterruptedException {
+        EntityCache<String, String> cache = new EntityCache<>("test", 10, 50, TimeUnit.MILLISECONDS);
+        cache.put("P001", "value");
+        assert cache.getIfPresent("P001") != null : "Entry should be present before ttl";
+
+        Thread.sleep(80);
+        assert cache.getIfPresent("P001") == null : "Entry should have expired";
+        assert cache.getExpirationCount() == 1 : "Expected one expiration";
+    }
+
+    private static void testInvalidate() {
+        EntityCache<String, String> cache = new EntityCache<>("test", 10, 0, TimeUnit.SECONDS);
+        cache.put("P001", "value");
+        cache.invalidate("P001");
+        assert cache.getIfPresent("P001") == null : "Invalidated entry still present";
+        assert cache.size() == 0 : "Cache should be empty";
+    }
+
+    private static void testLoadRacingWrite() throws Exception {
+        EntityCache<String, String> cache = new EntityCache<>("test", 10, 0, TimeUnit.SECONDS);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //the load reads the old row, then an update lands before the load finishes
+        Future<String> load = executor.submit(() -> cache.get("P001", key -> {
+            loading.countDown();
+            await(written);
+            return "old";
+        }));
+        loading.await();
+        cache.put("P001", "new");
+        written.countDown();
+
+        assert "old".equals(load.get()) : "The loader's own result should be returned";
+        assert "new".equals(cache.getIfPresent("P001")) : "A stale load overwrote a newer write";
+        executor.shutdown();
+    }
+
+    private static void testLoadRacingInvalidate() throws Exception {
+        EntityCache<String, String> cache = new EntityCache<>("test", 10, 0, TimeUnit.SECONDS);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //a load done outside the cache, the way the daos batch their misses
+        Future<Boolean> load = executor.submit(() -> {
+            long token = cache.beginLoad();
+            try {
+                loading.countDown();
+                await(invalidated);
+                return cache.putIfUnchanged("P001", "old", token);
+            } finally {
+                cache.endLoad(token);
+            }
+        });
+        loading.await();
+        cache.invalidate("P001");
+        invalidated.countDown();
+
+        assert !load.get() : "A load that raced an invalidation was cached";
+        assert cache.getIfPresent("P001") == null : "Invalidated entry came back";
+
+        //a load that starts after the write is cached as usual
+        long token = cache.beginLoad();
+        assert cache.putIfUnchanged("P001", "fresh", token) : "A fresh load was rejected";
+        cache.endLoad(token);
+        assert "fresh".equals(cache.getIfPresent("P001")) : "Fresh load not cached";
+        executor.shutdown();
+    }
+
+    private static void testNullKey() {
+        EntityCache<String, String> cache = new EntityCache<>("test", 10, 0, TimeUnit.SECONDS);
+        assert cache.getIfPresent(null) == null : "Null key should miss";
+        assert cache.get(null, key -> "value") == null : "Null key should not load";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
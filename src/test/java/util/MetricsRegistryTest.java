@@ -0,0 +1,77 @@
+package test.java.util;
+
+import main.java.util.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+//simple test of MetricsRegistry, run with -ea
+public class MetricsRegistryTest {
+    public static void main(String[] args) throws Exception {
+        testPercentiles();
+        testConcurrentRecording();
+        testTimingAndCounters();
+        System.out.println("All tests passed!");
+    }
+
+    private static void testPercentiles() {
+        MetricsRegistry.Timer timer = new MetricsRegistry.Timer();
+        //1..10,000 microseconds, one of each
+        for (int i = 1; i <= 10_000; i++) {
+            timer.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assert timer.getCount() == 10_000 : "Count doesn't match";
+        assertClose(timer.getPercentileNanos(0.50), TimeUnit.MICROSECONDS.toNanos(5_000), "p50");
+        assertClose(timer.getPercentileNanos(0.99), TimeUnit.MICROSECONDS.toNanos(9_900), "p99");
+        assertClose(timer.getPercentileNanos(0.999), TimeUnit.MICROSECONDS.toNanos(9_990), "p999");
+        assert timer.getMaxNanos() == TimeUnit.MICROSECONDS.toNanos(10_000) : "Max doesn't match";
+        assert timer.getPercentileNanos(1.0) == timer.getMaxNanos() : "p100 should be the max";
+    }
+
+    private static void testConcurrentRecording() throws InterruptedException {
+        MetricsRegistry.Timer timer = new MetricsRegistry.Timer();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    timer.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assert timer.getCount() == 800_000 : "Recordings were lost";
+        assert timer.getMaxNanos() == 99_999 : "Max doesn't match";
+    }
+
+    private static void testTimingAndCounters() throws InterruptedException {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.timed("test.sleep", () -> Thread.sleep(20));
+        assert metrics.timed("test.call", () -> 7) == 7 : "Timed call lost its result";
+        try {
+            metrics.timed("test.failure", () -> {
+                throw new IllegalStateException("boom");
+            });
+            assert false : "Exception was swallowed";
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        metrics.counter("test.counter").add(3);
+        metrics.gauge("test.gauge", () -> 42);
+
+        assert metrics.timer("test.sleep").getCount() == 1 : "Timing wasn't recorded";
+        assert metrics.timer("test.sleep").getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(20) : "Timing too short";
+        assert metrics.timer("test.failure").getCount() == 1 : "Failed call wasn't timed";
+        assert metrics.counter("test.counter").getCount() == 3 : "Counter doesn't match";
+        assert metrics.getGaugeValues().get("test.gauge") == 42.0 : "Gauge doesn't match";
+        assert metrics.report().contains("test.sleep") : "Report is missing the timer";
+    }
+
+    //histogram buckets are accurate to about 3%
+    private static void assertClose(long actual, long expected, String name) {
+        assert Math.abs(actual - expected) <= expected * 0.04 : name + " was " + actual + ", expected about " + expected;
+    }
+}